@@ -0,0 +1,11 @@
+package com.multicloud.gateway.accesslog;
+
+/**
+ * What we keep of one exchange. Only raw values are captured on the request path; formatting happens on the writer thread.
+ *
+ * @param timestamp epoch millis when the request arrived
+ * @param status    response status code, or 0 if none was set
+ */
+public record AccessLogRecord(long timestamp, String method, String path, String routeId, int status,
+                              long latencyNanos, String userId, String clientIp) {
+}
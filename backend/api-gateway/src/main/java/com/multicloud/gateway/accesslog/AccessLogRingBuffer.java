@@ -0,0 +1,85 @@
+package com.multicloud.gateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer with many producers and one consumer.
+ * <p>
+ * Every slot carries a sequence number: a producer claims a position with one CAS on the tail and publishes the
+ * record by advancing the slot's sequence, the consumer hands the slot back the same way. A producer never waits;
+ * when the buffer is full {@link #offer} simply returns {@code false}.
+ */
+public final class AccessLogRingBuffer {
+    private final AccessLogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the single consumer thread
+    private long head;
+
+    public AccessLogRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.records = new AccessLogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} if the buffer is full and the record was dropped
+     */
+    public boolean offer(AccessLogRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records[index] = record;
+                    // Publishes the record: the consumer reads the slot only after seeing this sequence
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds a record from one lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code maxRecords} queued records to {@code consumer}. Must only be called from one thread.
+     *
+     * @return the number of records drained
+     */
+    public int drain(Consumer<AccessLogRecord> consumer, int maxRecords) {
+        int drained = 0;
+        while (drained < maxRecords) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            AccessLogRecord record = records[index];
+            records[index] = null;
+            sequences.set(index, head + records.length);
+            head++;
+            drained++;
+            consumer.accept(record);
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return records.length;
+    }
+}
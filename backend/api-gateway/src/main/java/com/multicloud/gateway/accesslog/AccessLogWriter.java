@@ -0,0 +1,117 @@
+package com.multicloud.gateway.accesslog;
+
+import com.multicloud.gateway.config.AccessLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves access log records off the event loop: {@link #submit} only samples and enqueues, and a single daemon
+ * thread drains the ring buffer in batches into the {@code gateway.access-log} logger. If the logger falls behind,
+ * the buffer fills up and records are dropped and counted instead of slowing down requests.
+ */
+@Component
+public class AccessLogWriter implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+    private static final Logger accessLogger = LoggerFactory.getLogger("gateway.access-log");
+
+    private final boolean enabled;
+    private final double successSampleRate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AccessLogRingBuffer buffer;
+    private final Counter dropped;
+    private final Counter written;
+    private final Thread drainer;
+    private final StringBuilder line = new StringBuilder(256);
+    private volatile boolean running = true;
+
+    public AccessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.successSampleRate = properties.successSampleRate();
+        this.batchSize = properties.batchSize();
+        this.flushIntervalNanos = properties.flushInterval().toNanos();
+        this.buffer = new AccessLogRingBuffer(properties.bufferCapacity());
+        this.dropped = Counter.builder("gateway.access_log.dropped")
+                .description("Access log records dropped because the buffer was full")
+                .register(meterRegistry);
+        this.written = Counter.builder("gateway.access_log.written")
+                .description("Access log records written")
+                .register(meterRegistry);
+        this.drainer = new Thread(this::drainLoop, "access-log-writer");
+        this.drainer.setDaemon(true);
+        if (enabled) {
+            drainer.start();
+        }
+        logger.info("Access log enabled: {}, buffer capacity: {}, batch size: {}, success sample rate: {}",
+                enabled, buffer.capacity(), batchSize, successSampleRate);
+    }
+
+    /**
+     * Whether a response with this status should be logged at all; errors always are, successes are sampled.
+     * Callers check this before building a record.
+     */
+    public boolean isSampled(int status) {
+        if (!enabled) {
+            return false;
+        }
+        return status >= 400 || status == 0
+                || successSampleRate >= 1.0
+                || ThreadLocalRandom.current().nextDouble() < successSampleRate;
+    }
+
+    /**
+     * Queues the record without ever blocking.
+     */
+    public void submit(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (buffer.drain(this::write, batchSize) < batchSize) {
+                    // Caught up: wait for the next batch instead of spinning
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Access log writer failed, continuing", e);
+            }
+        }
+        // Flush what is left on shutdown
+        while (buffer.drain(this::write, batchSize) > 0) {
+            // keep draining
+        }
+    }
+
+    private void write(AccessLogRecord record) {
+        line.setLength(0);
+        line.append(Instant.ofEpochMilli(record.timestamp()))
+                .append(' ').append(record.method())
+                .append(' ').append(record.path())
+                .append(" status=").append(record.status())
+                .append(" latency_ms=").append(TimeUnit.NANOSECONDS.toMicros(record.latencyNanos()) / 1000.0)
+                .append(" route=").append(record.routeId())
+                .append(" user=").append(record.userId())
+                .append(" ip=").append(record.clientIp());
+        accessLogger.info(line.toString());
+        written.increment();
+    }
+}
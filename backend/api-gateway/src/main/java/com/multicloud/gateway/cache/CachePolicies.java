@@ -0,0 +1,92 @@
+package com.multicloud.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.multicloud.gateway.config.CachePolicyProperties;
+import com.multicloud.gateway.config.CachePolicyProperties.KeyStrength;
+import com.multicloud.gateway.config.CachePolicyProperties.Policy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Builds Caffeine caches from the named policies in {@code gateway.cache.*} and publishes each cache's statistics
+ * under its name ({@code cache.gets}, {@code cache.evictions}, ... tagged {@code cache=<name>}).
+ */
+@Component
+public class CachePolicies {
+    private static final Logger logger = LoggerFactory.getLogger(CachePolicies.class);
+
+    private final CachePolicyProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public CachePolicies(CachePolicyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        logger.info("Cache policies: default {}, named {}", properties.defaults(), properties.caches());
+    }
+
+    public <K, V> Cache<K, V> build(String name) {
+        return build(name, null, null);
+    }
+
+    /**
+     * Builds a cache whose entries do not all live equally long.
+     *
+     * @param weigher needed when the policy declares {@code maximum-weight}
+     * @param expiry  creates the per-entry expiry from the policy's {@code expire-after-write}, which becomes the
+     *                longest an entry is kept; the policy must then set it, and must not set {@code expire-after-access}
+     */
+    public <K, V> Cache<K, V> build(String name, Weigher<? super K, ? super V> weigher,
+                                    Function<Duration, Expiry<? super K, ? super V>> expiry) {
+        return monitor(name, this.<K, V>builder(name, weigher, expiry).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> Caffeine<K, V> builder(String name, Weigher<? super K, ? super V> weigher,
+                                          Function<Duration, Expiry<? super K, ? super V>> expiry) {
+        Policy policy = properties.policy(name);
+        Caffeine<K, V> builder = (Caffeine<K, V>) (Caffeine<?, ?>) Caffeine.newBuilder();
+        if (policy.maximumWeight() != null) {
+            if (weigher == null) {
+                throw new IllegalStateException("Cache '" + name + "' declares maximum-weight but is built without a weigher");
+            }
+            builder.maximumWeight(policy.maximumWeight().toBytes()).weigher(weigher);
+        } else if (policy.maximumSize() != null) {
+            builder.maximumSize(policy.maximumSize());
+        }
+        if (expiry != null) {
+            if (policy.expireAfterWrite() == null || policy.expireAfterAccess() != null) {
+                throw new IllegalStateException("Cache '" + name + "' expires entries individually and needs "
+                        + "expire-after-write as their upper bound, without expire-after-access");
+            }
+            builder.expireAfter(expiry.apply(policy.expireAfterWrite()));
+        } else {
+            if (policy.expireAfterWrite() != null) {
+                builder.expireAfterWrite(policy.expireAfterWrite());
+            }
+            if (policy.expireAfterAccess() != null) {
+                builder.expireAfterAccess(policy.expireAfterAccess());
+            }
+        }
+        if (policy.keys() == KeyStrength.WEAK) {
+            builder.weakKeys();
+        }
+        if (policy.recordStats()) {
+            builder.recordStats();
+        }
+        return builder;
+    }
+
+    private <K, V, C extends Cache<K, V>> C monitor(String name, C cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+}
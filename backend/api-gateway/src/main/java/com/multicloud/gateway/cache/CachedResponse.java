@@ -0,0 +1,47 @@
+package com.multicloud.gateway.cache;
+
+import java.util.Base64;
+
+/**
+ * A cached 200 response body with the headers needed to replay it.
+ *
+ * @param expiresAt   epoch millis after which the entry must not be served, on any node
+ * @param contentType the downstream {@code Content-Type}, or {@code null}
+ */
+public record CachedResponse(long expiresAt, String etag, String contentType, byte[] body) {
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Encodes the entry as one Redis string: expiry, ETag and content type on their own lines, then the Base64 body.
+     * None of the header values can contain a line break.
+     */
+    String encode() {
+        return expiresAt + "\n" + etag + "\n" + (contentType != null ? contentType : "") + "\n"
+                + Base64.getEncoder().encodeToString(body);
+    }
+
+    /**
+     * @return the decoded entry, or {@code null} if the value was not written by {@link #encode()}
+     */
+    static CachedResponse decode(String value) {
+        int first = value.indexOf('\n');
+        int second = value.indexOf('\n', first + 1);
+        int third = value.indexOf('\n', second + 1);
+        if (first < 0 || second < 0 || third < 0) {
+            return null;
+        }
+        try {
+            String contentType = value.substring(second + 1, third);
+            return new CachedResponse(
+                    Long.parseLong(value, 0, first, 10),
+                    value.substring(first + 1, second),
+                    contentType.isEmpty() ? null : contentType,
+                    Base64.getDecoder().decode(value.substring(third + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
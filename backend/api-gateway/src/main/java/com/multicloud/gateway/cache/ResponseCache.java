@@ -0,0 +1,199 @@
+package com.multicloud.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.multicloud.gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier store for {@link CachedResponse}s: a bounded Caffeine tier on every node in front of Redis.
+ * <p>
+ * Keys carry a per-user generation. A write by the user bumps the generation in Redis and announces it on a
+ * pub/sub channel, so every node stops serving that user's old entries without having to find and delete them.
+ * Nodes keep the generation in memory for at most the {@code response-cache-generations} policy's
+ * {@code expire-after-write}, which bounds staleness if a message is lost. Local entries follow the
+ * {@code response-cache} policy, which has to set {@code maximum-weight} (in bytes of key and body) and
+ * {@code expire-after-write}.
+ */
+@Component
+public class ResponseCache implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+    static final String INVALIDATION_CHANNEL = "response_cache.invalidations";
+    static final String CACHE_NAME = "response-cache";
+    static final String GENERATIONS_CACHE_NAME = "response-cache-generations";
+    private static final String METRIC_LOOKUPS = "gateway.response_cache.lookups";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Duration redisTimeout;
+    private final Cache<String, CachedResponse> entries;
+    private final Cache<String, Long> generations;
+    private final Disposable invalidations;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public ResponseCache(ReactiveStringRedisTemplate redisTemplate,
+                         ResponseCacheProperties properties,
+                         CachePolicies cachePolicies,
+                         MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisTimeout = properties.redisTimeout();
+        this.entries = cachePolicies.build(CACHE_NAME,
+                (String key, CachedResponse response) -> key.length() + response.body().length, EntryExpiry::new);
+        this.generations = cachePolicies.build(GENERATIONS_CACHE_NAME);
+
+        this.localHits = lookupCounter(meterRegistry, "local_hit");
+        this.redisHits = lookupCounter(meterRegistry, "redis_hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.bypassed = lookupCounter(meterRegistry, "bypass");
+
+        this.invalidations = properties.enabled()
+                ? redisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+                        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                        .subscribe(message -> generations.invalidate(message.getMessage()))
+                : null;
+        logger.info("Response cache enabled: {}, rules: {}", properties.enabled(), properties.rules().size());
+    }
+
+    /**
+     * Looks up the user's entry for {@code resource} (path and query). Never fails: when the user's generation
+     * cannot be read from Redis the lookup is {@link Lookup#BYPASS} and nothing should be cached.
+     */
+    public Mono<Lookup> lookup(String userId, String resource) {
+        return generation(userId)
+                .flatMap(generation -> {
+                    String key = entryKey(userId, generation, resource);
+                    long now = System.currentTimeMillis();
+                    CachedResponse local = entries.getIfPresent(key);
+                    if (local != null && !local.isExpired(now)) {
+                        localHits.increment();
+                        return Mono.just(new Lookup(key, local));
+                    }
+                    return redisTemplate.opsForValue().get(key)
+                            .timeout(redisTimeout)
+                            .map(value -> {
+                                CachedResponse shared = CachedResponse.decode(value);
+                                if (shared == null || shared.isExpired(now)) {
+                                    misses.increment();
+                                    return new Lookup(key, null);
+                                }
+                                redisHits.increment();
+                                entries.put(key, shared);
+                                return new Lookup(key, shared);
+                            })
+                            .switchIfEmpty(Mono.fromSupplier(() -> {
+                                misses.increment();
+                                return new Lookup(key, null);
+                            }))
+                            // Redis unavailable: treat as a miss, the response can still be kept locally
+                            .onErrorResume(error -> {
+                                misses.increment();
+                                return Mono.just(new Lookup(key, null));
+                            });
+                })
+                .onErrorResume(error -> {
+                    logger.debug("Response cache bypassed for user {}: {}", userId, error.toString());
+                    bypassed.increment();
+                    return Mono.just(Lookup.BYPASS);
+                });
+    }
+
+    public void put(String key, CachedResponse response) {
+        long ttlMillis = response.expiresAt() - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        entries.put(key, response);
+        redisTemplate.opsForValue().set(key, response.encode(), Duration.ofMillis(ttlMillis))
+                .timeout(redisTimeout)
+                .subscribe(ignored -> { }, error -> logger.debug("Response cache write to Redis failed: {}", error.toString()));
+    }
+
+    /**
+     * Drops every cached response of the user on all nodes by moving the user to a new generation.
+     */
+    public Mono<Void> invalidate(String userId) {
+        generations.invalidate(userId);
+        return redisTemplate.opsForValue().increment(generationKey(userId))
+                .flatMap(generation -> redisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId))
+                .timeout(redisTimeout)
+                .doOnError(error -> logger.warn("Response cache invalidation for user {} failed: {}", userId, error.toString()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        if (invalidations != null) {
+            invalidations.dispose();
+        }
+    }
+
+    private Mono<Long> generation(String userId) {
+        Long local = generations.getIfPresent(userId);
+        if (local != null) {
+            return Mono.just(local);
+        }
+        return redisTemplate.opsForValue().get(generationKey(userId))
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .timeout(redisTimeout)
+                .doOnNext(generation -> generations.put(userId, generation));
+    }
+
+    static String entryKey(String userId, long generation, String resource) {
+        // Braces keep all of a user's keys in one hash slot on Redis Cluster
+        return "response_cache.{" + userId + "}." + generation + ":" + resource;
+    }
+
+    static String generationKey(String userId) {
+        return "response_cache.{" + userId + "}.generation";
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_LOOKUPS)
+                .description("Response cache lookups by the tier that answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Result of a lookup: the entry key to store a fresh response under, and the cached response on a hit.
+     */
+    public record Lookup(String key, CachedResponse response) {
+        public static final Lookup BYPASS = new Lookup(null, null);
+    }
+
+    private record EntryExpiry(Duration maxTtl) implements Expiry<String, CachedResponse> {
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull CachedResponse response, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(response.expiresAt() - System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtl.toNanos(), remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
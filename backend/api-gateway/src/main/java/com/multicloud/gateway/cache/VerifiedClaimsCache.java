@@ -0,0 +1,76 @@
+package com.multicloud.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Bounded cache of already decrypted and verified token claims, keyed by the SHA-256 of the token.
+ * Every entry expires at the token's own {@code exp} or after the {@code verified-claims} policy's
+ * {@code expire-after-write}, whichever comes first.
+ */
+@Component
+public class VerifiedClaimsCache {
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedClaimsCache.class);
+    static final String CACHE_NAME = "verified-claims";
+
+    private final boolean enabled;
+    private final Cache<String, JWTClaimsSet> cache;
+
+    public VerifiedClaimsCache(@Value("${security.jwt.claims-cache.enabled:true}") boolean enabled,
+                               CachePolicies cachePolicies) {
+        this.enabled = enabled;
+        this.cache = cachePolicies.build(CACHE_NAME, null, ClaimsExpiry::new);
+        logger.info("Verified claims cache enabled: {}", enabled);
+    }
+
+    public JWTClaimsSet get(String tokenHash) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(tokenHash);
+    }
+
+    public void put(String tokenHash, JWTClaimsSet claims) {
+        if (enabled && remainingNanos(claims) > 0) {
+            cache.put(tokenHash, claims);
+        }
+    }
+
+    public void invalidate(String tokenHash) {
+        cache.invalidate(tokenHash);
+    }
+
+    private static long remainingNanos(JWTClaimsSet claims) {
+        Date expirationTime = claims.getExpirationTime();
+        if (expirationTime == null) {
+            return 0;
+        }
+        return Duration.ofMillis(expirationTime.getTime() - System.currentTimeMillis()).toNanos();
+    }
+
+    private record ClaimsExpiry(Duration maxTtl) implements Expiry<String, JWTClaimsSet> {
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull JWTClaimsSet claims, long currentTime) {
+            return Math.max(0, Math.min(maxTtl.toNanos(), remainingNanos(claims)));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull JWTClaimsSet claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull JWTClaimsSet claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
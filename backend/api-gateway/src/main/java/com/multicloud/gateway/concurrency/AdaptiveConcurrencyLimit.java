@@ -0,0 +1,96 @@
+package com.multicloud.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit for one route, driven by response latency.
+ * <p>
+ * The baseline is an exponential average of the latency of successful samples. A sample slower than
+ * {@code tolerance × baseline}, or a failure, multiplies the limit by the backoff ratio, at most once per baseline
+ * interval so that a burst of slow responses from one episode only counts once. Good samples add one while at
+ * least half of the limit is in use; an idle route has no evidence that it could take more.
+ */
+public final class AdaptiveConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double baselineNanos;
+    private long lastDecrease;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance,
+                             int baselineSamples) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limit bounds must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.smoothing = 2.0 / (baselineSamples + 1);
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * @return whether the request may proceed; if so, {@link #release} must follow exactly once
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit without a sample, for requests whose outcome says nothing about the route (cancellations).
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos, boolean failed, long now) {
+        int pending = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (baselineNanos == 0 && !failed) {
+                baselineNanos = latencyNanos;
+                return;
+            }
+            boolean slow = latencyNanos > baselineNanos * tolerance;
+            if (!failed) {
+                // Slow samples move the baseline too, so a lasting slowdown eventually becomes the new normal
+                baselineNanos += smoothing * (latencyNanos - baselineNanos);
+            }
+            if (failed || slow) {
+                if (now - lastDecrease >= baselineNanos) {
+                    lastDecrease = now;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                }
+                return;
+            }
+            if (pending * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double baselineMillis() {
+        return baselineNanos / 1e6;
+    }
+}
@@ -0,0 +1,74 @@
+package com.multicloud.gateway.concurrency;
+
+import com.multicloud.gateway.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AdaptiveConcurrencyLimit} per route id, so a slow route only exhausts its own permits.
+ */
+@Component
+public class ConcurrencyLimits {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimits.class);
+    private static final String METRIC_LIMIT = "gateway.concurrency.limit";
+    private static final String METRIC_IN_FLIGHT = "gateway.concurrency.in_flight";
+    private static final String METRIC_BASELINE = "gateway.concurrency.baseline_latency";
+    private static final String METRIC_REJECTED = "gateway.concurrency.rejected";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteLimit> routes = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimits(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        logger.info("Concurrency limits enabled: {}, initial {}, bounds [{}, {}], route overrides: {}",
+                properties.enabled(), properties.initialLimit(), properties.minLimit(), properties.maxLimit(),
+                properties.routes().keySet());
+    }
+
+    public RouteLimit forRoute(String routeId) {
+        return routes.computeIfAbsent(routeId, this::create);
+    }
+
+    private RouteLimit create(String routeId) {
+        ConcurrencyLimitProperties.Bounds bounds = properties.routes().get(routeId);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+                bounds != null && bounds.initialLimit() != null ? bounds.initialLimit() : properties.initialLimit(),
+                bounds != null && bounds.minLimit() != null ? bounds.minLimit() : properties.minLimit(),
+                bounds != null && bounds.maxLimit() != null ? bounds.maxLimit() : properties.maxLimit(),
+                properties.backoffRatio(),
+                properties.latencyTolerance(),
+                properties.baselineSamples());
+        Tags tags = Tags.of("route", routeId);
+        Gauge.builder(METRIC_LIMIT, limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit of the route")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_IN_FLIGHT, limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests of the route currently holding a permit")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_BASELINE, limit, AdaptiveConcurrencyLimit::baselineMillis)
+                .description("Latency the route's limit is measured against")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder(METRIC_REJECTED)
+                .description("Requests shed because the route was at its concurrency limit")
+                .tags(tags)
+                .register(meterRegistry);
+        return new RouteLimit(limit, rejected);
+    }
+
+    public record RouteLimit(AdaptiveConcurrencyLimit limit, Counter rejected) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Access log pipeline. Records are queued in a ring buffer of {@code buffer-capacity} (rounded up to a power of two)
+ * and written in batches of up to {@code batch-size}; responses below 400 are kept with {@code success-sample-rate}.
+ */
+@ConfigurationProperties(prefix = "gateway.access-log")
+public record AccessLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("8192") int bufferCapacity,
+        @DefaultValue("256") int batchSize,
+        @DefaultValue("100ms") Duration flushInterval,
+        @DefaultValue("1.0") double successSampleRate) {
+}
@@ -1,35 +1,33 @@
 package com.multicloud.gateway.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.multicloud.gateway.cache.CachePolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class CacheConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
 
     @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        logger.info("Initializing Caffeine cache configuration...");
-        return Caffeine.newBuilder()
-                .initialCapacity(100)
-                .maximumSize(500)
-                .weakKeys()
-                .recordStats();
-    }
-
-    @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        logger.info("Initializing CaffeineCacheManager...");
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(caffeine);
-        return cacheManager;
+    public CacheManager cacheManager(CachePolicies cachePolicies) {
+        logger.info("Initializing CaffeineCacheManager with named cache policies...");
+        // Caches are still created on first use, but each one from its own policy in gateway.cache.*
+        return new CaffeineCacheManager() {
+            @Override
+            protected @NonNull Cache<Object, Object> createNativeCaffeineCache(@NonNull String name) {
+                return cachePolicies.build(name);
+            }
+        };
     }
 }
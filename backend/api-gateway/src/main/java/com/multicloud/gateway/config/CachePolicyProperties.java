@@ -0,0 +1,45 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Caffeine policies by cache name. A cache listed under {@code caches} uses only its own entry; every other cache
+ * uses {@code defaults}. Unset limits and expirations are simply not applied.
+ */
+@ConfigurationProperties(prefix = "gateway.cache")
+public record CachePolicyProperties(
+        @DefaultValue Policy defaults,
+        Map<String, Policy> caches) {
+
+    public CachePolicyProperties {
+        caches = caches != null ? Map.copyOf(caches) : Map.of();
+    }
+
+    public Policy policy(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    /**
+     * @param maximumWeight    bound on the summed weight; the owning component has to supply the weigher
+     * @param expireAfterWrite for caches that expire entries individually, the longest any entry is kept
+     * @param keys             {@code WEAK} compares keys by identity, so it only fits caches keyed by canonical instances
+     */
+    public record Policy(
+            @DefaultValue("500") Long maximumSize,
+            DataSize maximumWeight,
+            Duration expireAfterWrite,
+            Duration expireAfterAccess,
+            @DefaultValue("STRONG") KeyStrength keys,
+            @DefaultValue("true") boolean recordStats) {
+    }
+
+    public enum KeyStrength {
+        STRONG,
+        WEAK
+    }
+}
@@ -0,0 +1,33 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-route adaptive concurrency limits. Each route starts at {@code initial-limit} requests in flight; the limit
+ * grows by one per sample while the route is busy and its latency stays within {@code latency-tolerance} times the
+ * route's baseline, and shrinks by {@code backoff-ratio} on slow, failed or 5xx responses.
+ * {@code routes} overrides the bounds per route id.
+ */
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("2.0") double latencyTolerance,
+        @DefaultValue("100") int baselineSamples,
+        @DefaultValue("1s") Duration retryAfter,
+        Map<String, Bounds> routes) {
+
+    public ConcurrencyLimitProperties {
+        routes = routes != null ? Map.copyOf(routes) : Map.of();
+    }
+
+    public record Bounds(Integer initialLimit, Integer minLimit, Integer maxLimit) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Stateless CSRF tokens. Tokens are signed with the first of {@code keys}; the others are still accepted so keys can
+ * be rotated by prepending a new one and dropping the old one after {@code max-age}. All replicas need the same keys.
+ *
+ * @param cookieName HttpOnly cookie holding the random browser binding the tokens are signed over
+ */
+@ConfigurationProperties(prefix = "gateway.csrf")
+public record CsrfProperties(
+        @DefaultValue("__Host-XSRF-SESSION") String cookieName,
+        @DefaultValue("X-XSRF-TOKEN") String headerName,
+        @DefaultValue("_csrf") String parameterName,
+        @DefaultValue("24h") Duration maxAge,
+        @DefaultValue("Lax") String sameSite,
+        List<Key> keys) {
+
+    public CsrfProperties {
+        keys = keys != null ? List.copyOf(keys) : List.of();
+    }
+
+    /**
+     * @param secret base64-encoded HMAC-SHA256 key of at least 256 bits
+     */
+    public record Key(String id, String secret) {
+    }
+}
@@ -1,19 +1,41 @@
 package com.multicloud.gateway.config;
 
+import com.multicloud.commonlib.events.SessionRevokedEvent;
+import com.multicloud.gateway.filter.AuthenticationFilter;
+import com.multicloud.gateway.service.ClientIpResolver;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import reactor.core.publisher.Mono;
 
-import java.util.Objects;
-
 @Configuration
+@EnableConfigurationProperties({RateLimitProperties.class, ResponseCacheProperties.class, AccessLogProperties.class,
+        LoadBalancerProperties.class, ConcurrencyLimitProperties.class})
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfig.class)
+@RemoteApplicationEventScan(basePackageClasses = SessionRevokedEvent.class)
 public class GatewayConfig {
 
     @Bean
-    public KeyResolver ipKeyResolver() {
-        return exchange -> Mono.just(
-                Objects.requireNonNull(exchange.getRequest()
-                        .getRemoteAddress()).getAddress().getHostAddress());
+    public KeyResolver ipKeyResolver(ClientIpResolver clientIpResolver) {
+        // Client address behind our trusted proxies, not the proxy's own address
+        return exchange -> Mono.just(clientIpResolver.resolve(exchange).address());
+    }
+
+    /**
+     * Rate limiter key: the user id once {@link AuthenticationFilter} has verified the token, the client IP otherwise.
+     */
+    @Bean
+    @Primary
+    public KeyResolver userOrIpKeyResolver(ClientIpResolver clientIpResolver) {
+        return exchange -> {
+            String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+            return Mono.just(userId != null
+                    ? "user:" + userId
+                    : "ip:" + clientIpResolver.resolve(exchange).address());
+        };
     }
 }
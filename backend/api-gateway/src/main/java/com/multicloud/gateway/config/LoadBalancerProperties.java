@@ -0,0 +1,17 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Latency-aware load balancing for {@code lb://} routes. {@code decay} is the time constant of the per-instance
+ * latency average; failed and 5xx responses count as at least {@code error-penalty} so a fast-failing instance
+ * does not look attractive.
+ */
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public record LoadBalancerProperties(
+        @DefaultValue("10s") Duration decay,
+        @DefaultValue("1s") Duration errorPenalty) {
+}
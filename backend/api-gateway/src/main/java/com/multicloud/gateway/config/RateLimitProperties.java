@@ -0,0 +1,29 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Quotas for the near-cache rate limiter. {@code routes} overrides the defaults per route id;
+ * fields left out of a route entry fall back to the defaults.
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("50") int replenishRate,
+        @DefaultValue("100") int burstCapacity,
+        @DefaultValue("1") int requestedTokens,
+        @DefaultValue("10") int leaseTokens,
+        @DefaultValue("1s") Duration leaseTtl,
+        @DefaultValue("50ms") Duration redisTimeout,
+        Map<String, Quota> routes) {
+
+    public RateLimitProperties {
+        routes = routes != null ? Map.copyOf(routes) : Map.of();
+    }
+
+    public record Quota(Integer replenishRate, Integer burstCapacity, Integer requestedTokens, Integer leaseTokens) {
+    }
+}
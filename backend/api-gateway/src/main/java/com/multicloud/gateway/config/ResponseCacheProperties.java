@@ -0,0 +1,31 @@
+package com.multicloud.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-user response cache for idempotent GET routes. Only paths listed in {@code rules} are cached, each with its
+ * own TTL. How much a node keeps in memory, and for how long, is the {@code response-cache} policy under
+ * {@code gateway.cache.caches}.
+ */
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("256KB") DataSize maximumBodySize,
+        @DefaultValue("50ms") Duration redisTimeout,
+        List<Rule> rules) {
+
+    public ResponseCacheProperties {
+        rules = rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    /**
+     * @param path a Spring path pattern such as {@code /vm/aws/regions} or {@code /vm/cloudaccounts/**}
+     */
+    public record Rule(String path, Duration ttl) {
+    }
+}
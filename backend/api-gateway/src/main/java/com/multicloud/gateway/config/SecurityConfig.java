@@ -1,18 +1,35 @@
 package com.multicloud.gateway.config;
 
+import com.multicloud.gateway.csrf.HmacCsrfTokenRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
-import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
+import org.springframework.security.web.server.csrf.ServerCsrfTokenRequestAttributeHandler;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 
 @EnableWebFluxSecurity
 @Configuration
+@EnableConfigurationProperties(CsrfProperties.class)
 public class SecurityConfig {
+    private static final byte[] CSRF_REJECTED_BODY = "{\"error\": \"Invalid CSRF token\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Bean
+    public HmacCsrfTokenRepository csrfTokenRepository(CsrfProperties properties) {
+        return new HmacCsrfTokenRepository(properties, Clock.systemUTC());
+    }
+
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, HmacCsrfTokenRepository csrfTokenRepository) {
         return http
                 .authorizeExchange(auth -> auth
                         .pathMatchers("/actuator/health").permitAll()
@@ -21,8 +38,19 @@ public class SecurityConfig {
                 )
                 .httpBasic(Customizer.withDefaults())
                 .csrf(csrf -> csrf
-                        .csrfTokenRepository(CookieServerCsrfTokenRepository.withHttpOnlyFalse())
+                        .csrfTokenRepository(csrfTokenRepository)
+                        // Tokens are compared as issued: each one already differs by its timestamp and MAC,
+                        // so the XOR masking of the default handler adds nothing
+                        .csrfTokenRequestHandler(new ServerCsrfTokenRequestAttributeHandler())
+                        // Lets the frontend tell a stale token apart from other 403s and fetch a new one
+                        .accessDeniedHandler((exchange, denied) -> {
+                            ServerHttpResponse response = exchange.getResponse();
+                            response.setStatusCode(HttpStatus.FORBIDDEN);
+                            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                            response.getHeaders().setContentLength(CSRF_REJECTED_BODY.length);
+                            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(CSRF_REJECTED_BODY)));
+                        })
                 )
                 .build();
     }
-}
\ No newline at end of file
+}
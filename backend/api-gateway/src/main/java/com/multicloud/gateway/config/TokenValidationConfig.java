@@ -0,0 +1,50 @@
+package com.multicloud.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class TokenValidationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenValidationConfig.class);
+    public static final String DECRYPT_EXECUTOR_NAME = "jwe.decrypt";
+
+    /**
+     * Fixed-size pool for JWE decryption so RSA work never runs on the Netty event loop.
+     * The queue is bounded; once it is full new validations are rejected instead of piling up.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jweDecryptScheduler(@Value("${security.jwt.decrypt.threads:0}") int threads,
+                                         @Value("${security.jwt.decrypt.queue-capacity:256}") int queueCapacity,
+                                         MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "jwe-decrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Publishes executor.queued, executor.active, executor.idle and executor.pool.* for sizing
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, DECRYPT_EXECUTOR_NAME);
+        logger.info("JWE decrypt scheduler initialized with {} threads and queue capacity {}", poolSize, queueCapacity);
+        return Schedulers.fromExecutorService(monitored, "jwe-decrypt");
+    }
+}
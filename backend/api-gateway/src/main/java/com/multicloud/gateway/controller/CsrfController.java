@@ -1,6 +1,9 @@
 package com.multicloud.gateway.controller;
 
+import com.multicloud.gateway.config.CsrfProperties;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.web.server.csrf.CsrfToken;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,14 +12,22 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 public class CsrfController {
+    // Everything but the token is fixed, so the JSON around it is encoded once
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    public CsrfController(CsrfProperties properties) {
+        this.prefix = "{\"token\":\"".getBytes(StandardCharsets.US_ASCII);
+        this.suffix = ("\",\"headerName\":\"" + properties.headerName()
+                + "\",\"parameterName\":\"" + properties.parameterName() + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
 
     @GetMapping("/csrf")
-    public Mono<ResponseEntity<Map<String, String>>> getCsrfToken(ServerWebExchange exchange) {
+    public Mono<ResponseEntity<byte[]>> getCsrfToken(ServerWebExchange exchange) {
         Mono<CsrfToken> csrfTokenMono = exchange.getAttributeOrDefault(
                 CsrfToken.class.getName(),
                 Mono.empty()
@@ -24,12 +35,19 @@ public class CsrfController {
         return csrfTokenMono
                 .switchIfEmpty(Mono.error(new ResponseStatusException(
                         HttpStatus.BAD_REQUEST, "CSRF token not available")))
-                .map(token -> {
-                    Map<String, String> response = new HashMap<>();
-                    response.put("token", token.getToken());
-                    response.put("headerName", token.getHeaderName());
-                    response.put("parameterName", token.getParameterName());
-                    return ResponseEntity.ok(response);
-                });
+                .map(token -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cacheControl(CacheControl.noStore())
+                        .body(body(token.getToken())));
+    }
+
+    private byte[] body(String token) {
+        // Tokens only contain base64url characters and dots, nothing that needs JSON escaping
+        byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[prefix.length + tokenBytes.length + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(tokenBytes, 0, body, prefix.length, tokenBytes.length);
+        System.arraycopy(suffix, 0, body, prefix.length + tokenBytes.length, suffix.length);
+        return body;
     }
 }
@@ -0,0 +1,161 @@
+package com.multicloud.gateway.csrf;
+
+import com.multicloud.gateway.config.CsrfProperties;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.web.server.csrf.CsrfToken;
+import org.springframework.security.web.server.csrf.DefaultCsrfToken;
+import org.springframework.security.web.server.csrf.ServerCsrfTokenRepository;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CSRF tokens that any replica can verify without storage: {@code <key id>.<issued at>.<HMAC>}, where the HMAC covers
+ * a random per-browser binding kept in an HttpOnly cookie and the issue time.
+ * <p>
+ * {@link org.springframework.security.web.server.csrf.CsrfWebFilter} compares the submitted token with the one this
+ * repository loads, so {@link #loadToken} returns the submitted header itself once its signature, binding and age
+ * check out, and nothing otherwise. The binding cookie is a {@code __Host-} cookie by default, so a sibling
+ * subdomain cannot plant its own binding together with a token issued for it.
+ */
+public class HmacCsrfTokenRepository implements ServerCsrfTokenRepository {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String NEW_BINDING_ATTRIBUTE = HmacCsrfTokenRepository.class.getName() + ".binding";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final CsrfProperties properties;
+    private final Clock clock;
+    private final String signingKeyId;
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+
+    public HmacCsrfTokenRepository(CsrfProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        for (CsrfProperties.Key key : properties.keys()) {
+            byte[] secret = Base64.getDecoder().decode(key.secret());
+            if (secret.length < 32) {
+                throw new IllegalArgumentException("CSRF key '" + key.id() + "' is shorter than 256 bits");
+            }
+            if (key.id().indexOf('.') >= 0) {
+                throw new IllegalArgumentException("CSRF key id '" + key.id() + "' must not contain '.'");
+            }
+            keys.put(key.id(), new SecretKeySpec(secret, ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            // A per-process key would break every open tab on restart and on every other replica
+            throw new IllegalStateException("No gateway.csrf.keys configured; all replicas need the same CSRF keys");
+        }
+        this.signingKeyId = keys.keySet().iterator().next();
+    }
+
+    @Override
+    public Mono<CsrfToken> generateToken(ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> {
+            String binding = binding(exchange);
+            if (binding == null) {
+                binding = ENCODER.encodeToString(randomBytes(16));
+                exchange.getAttributes().put(NEW_BINDING_ATTRIBUTE, binding);
+            }
+            String payload = signingKeyId + "." + Long.toString(clock.millis(), Character.MAX_RADIX);
+            return token(payload + "." + sign(keys.get(signingKeyId), binding, payload));
+        });
+    }
+
+    @Override
+    public Mono<Void> saveToken(ServerWebExchange exchange, CsrfToken token) {
+        return Mono.fromRunnable(() -> {
+            if (token == null) {
+                exchange.getResponse().addCookie(cookie("", 0));
+                return;
+            }
+            String binding = exchange.getAttribute(NEW_BINDING_ATTRIBUTE);
+            if (binding != null) {
+                exchange.getResponse().addCookie(cookie(binding, properties.maxAge().toSeconds()));
+            }
+        });
+    }
+
+    @Override
+    public Mono<CsrfToken> loadToken(ServerWebExchange exchange) {
+        String submitted = exchange.getRequest().getHeaders().getFirst(properties.headerName());
+        String binding = binding(exchange);
+        if (submitted == null || binding == null || !isValid(submitted, binding)) {
+            return Mono.empty();
+        }
+        return Mono.just(token(submitted));
+    }
+
+    private boolean isValid(String submitted, String binding) {
+        int first = submitted.indexOf('.');
+        int second = submitted.indexOf('.', first + 1);
+        if (first <= 0 || second < 0) {
+            return false;
+        }
+        SecretKeySpec key = keys.get(submitted.substring(0, first));
+        if (key == null) {
+            return false;
+        }
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(submitted, first + 1, second, Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long age = clock.millis() - issuedAt;
+        if (age < 0 || age > properties.maxAge().toMillis()) {
+            return false;
+        }
+        byte[] expected = sign(key, binding, submitted.substring(0, second)).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = submitted.substring(second + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private String binding(ServerWebExchange exchange) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(properties.cookieName());
+        return cookie != null && !cookie.getValue().isEmpty() ? cookie.getValue() : null;
+    }
+
+    private CsrfToken token(String value) {
+        return new DefaultCsrfToken(properties.headerName(), properties.parameterName(), value);
+    }
+
+    private ResponseCookie cookie(String value, long maxAgeSeconds) {
+        return ResponseCookie.from(properties.cookieName(), value)
+                .httpOnly(true)
+                .secure(true)
+                .path("/")
+                .maxAge(maxAgeSeconds)
+                .sameSite(properties.sameSite())
+                .build();
+    }
+
+    private static String sign(SecretKeySpec key, String binding, String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(binding.getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) '.');
+            return ENCODER.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,7 @@
+package com.multicloud.gateway.exception;
+
+public class TokenRevokedException extends InvalidTokenException {
+    public TokenRevokedException(String message) {
+        super(message);
+    }
+}
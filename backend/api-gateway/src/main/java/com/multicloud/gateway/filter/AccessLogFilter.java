@@ -0,0 +1,66 @@
+package com.multicloud.gateway.filter;
+
+import com.multicloud.gateway.accesslog.AccessLogRecord;
+import com.multicloud.gateway.accesslog.AccessLogWriter;
+import com.multicloud.gateway.service.ClientIpResolver;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Captures one {@link AccessLogRecord} per exchange once the response is done and hands it to {@link AccessLogWriter}.
+ * Runs first so the latency covers every other filter, including authentication and the rate limiter.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    private final AccessLogWriter accessLogWriter;
+    private final ClientIpResolver clientIpResolver;
+
+    public AccessLogFilter(AccessLogWriter accessLogWriter, ClientIpResolver clientIpResolver) {
+        this.accessLogWriter = accessLogWriter;
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> record(exchange, timestamp, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, long timestamp, long latencyNanos) {
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : 0;
+        if (!accessLogWriter.isSampled(status)) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        // Attributes are shared with the exchanges mutated further down the chain, so the user id is visible here
+        String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+        accessLogWriter.submit(new AccessLogRecord(
+                timestamp,
+                request.getMethod().name(),
+                request.getPath().value(),
+                route != null ? route.getId() : null,
+                status,
+                latencyNanos,
+                userId,
+                clientIpResolver.resolve(exchange).address()));
+    }
+}
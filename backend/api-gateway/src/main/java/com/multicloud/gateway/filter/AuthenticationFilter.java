@@ -1,113 +1,161 @@
 package com.multicloud.gateway.filter;
 
+import com.multicloud.commonlib.security.IdentityAssertion;
 import com.multicloud.gateway.exception.TokenExpiredException;
-import com.multicloud.gateway.util.IpAddressUtil;
-import com.multicloud.gateway.util.JweUtil;
+import com.multicloud.gateway.exception.TokenRevokedException;
+import com.multicloud.gateway.filter.AuthenticationStageMetrics.Outcome;
+import com.multicloud.gateway.filter.AuthenticationStageMetrics.Stage;
+import com.multicloud.gateway.service.ClientIpResolver;
+import com.multicloud.gateway.service.TokenValidationService;
+import com.multicloud.gateway.util.ClientIpAddresses;
+import com.multicloud.gateway.util.IdentityHeadersUtil;
 import com.nimbusds.jwt.JWTClaimsSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpCookie;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.http.server.reactive.ServerHttpResponse;
-import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.multicloud.commonlib.constants.AuthConstants.JWE_TOKEN_COOKIE_NAME;
-import static com.multicloud.commonlib.constants.DeviceConstants.*;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
 
 @Component
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationFilter.class);
-    private final JweUtil jweUtil;
+    public static final String USER_ID_ATTRIBUTE = AuthenticationFilter.class.getName() + ".userId";
+    // Ahead of the response cache and of the default and route filters (ordered 1..n by position),
+    // so both the cache and the rate limiter see the user id
+    public static final int FILTER_ORDER = ResponseCacheFilter.ORDER - 1;
+    // 401 bodies are encoded once; each response only wraps the shared bytes
+    private static final byte[] MISSING_COOKIE_BODY = errorBody("Missing authorization cookie");
+    private static final byte[] EXPIRED_BODY = errorBody("Token has expired");
+    private static final byte[] REVOKED_BODY = errorBody("Token has been revoked");
+    private static final byte[] INVALID_BODY = errorBody("Invalid JWE token");
+    private final TokenValidationService tokenValidationService;
+    private final ClientIpResolver clientIpResolver;
+    private final AuthenticationStageMetrics metrics;
+    private final IdentityAssertion identityAssertion;
 
-    public AuthenticationFilter(JweUtil jweUtil) {
+    public AuthenticationFilter(TokenValidationService tokenValidationService, ClientIpResolver clientIpResolver,
+                                AuthenticationStageMetrics metrics, IdentityAssertion identityAssertion) {
         super(Config.class);
-        this.jweUtil = jweUtil;
+        this.tokenValidationService = tokenValidationService;
+        this.clientIpResolver = clientIpResolver;
+        this.metrics = metrics;
+        this.identityAssertion = identityAssertion;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            long start = System.nanoTime();
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : null;
             ServerHttpRequest request = exchange.getRequest();
-            String requestPath = request.getURI().getPath();
             if (RouteValidator.getIsSecured().test(request)) {
                 HttpCookie jweTokenCookie = request.getCookies().getFirst(JWE_TOKEN_COOKIE_NAME);
                 String jweToken = jweTokenCookie != null ? jweTokenCookie.getValue() : null;
+                long cookieRead = System.nanoTime();
                 if (jweToken == null) {
-                    return handleException(exchange.getResponse(), "Missing authorization cookie");
-                }
-                try {
-                    JWTClaimsSet claims = jweUtil.validateToken(jweToken);
-                    // Extract user details from claims
-                    String username = claims.getSubject();
-                    String email = (String) claims.getClaim("emailId");
-                    String userId = String.valueOf(claims.getClaim("userId"));
-                    // Extract client IP addresses
-                    String[] clientIpAddresses = IpAddressUtil.resolveClientIps(request);
-                    String ipAddressV4 = clientIpAddresses[0];
-                    String ipAddressV6 = clientIpAddresses[1];
-
-                    // Log the IP addresses and user information
-                    logger.info("Request from IPv4: {}, IPv6: {} to Path: {}", ipAddressV4, ipAddressV6, requestPath);
-                    logger.info("Request from IPv4: {}, IPv6: {}, Username: {}, Email: {}, UserId: {}", ipAddressV4, ipAddressV6, username, email, userId);
-
-                    // Create a modified request with additional headers
-                    ServerHttpRequest modifiedRequest = new ServerHttpRequestDecorator(request) {
-                        @Override
-                        public @NonNull HttpHeaders getHeaders() {
-                            HttpHeaders headers = super.getHeaders();
-                            headers.set(X_USER_NAME, username);
-                            headers.set(X_USER_EMAIL, email);
-                            headers.set(X_USER_ID, userId);
-                            headers.set(HEADER_IPV4, ipAddressV4);
-                            headers.set(HEADER_IPV6, ipAddressV6);
-                            return headers;
-                        }
-                    };
-                    // Continue the filter chain with the modified request
-                    return chain.filter(exchange.mutate().request(modifiedRequest).build());
-
-                } catch (TokenExpiredException e) {
-                    return handleException(exchange.getResponse(), "Token has expired");
-                } catch (Exception e) {
-                    return handleException(exchange.getResponse(), "Invalid JWE token");
+                    metrics.record(routeId, Stage.COOKIE, Outcome.MISSING_COOKIE, cookieRead - start);
+                    metrics.count(routeId, Outcome.MISSING_COOKIE);
+                    return handleException(exchange.getResponse(), MISSING_COOKIE_BODY);
                 }
+                metrics.record(routeId, Stage.COOKIE, Outcome.OK, cookieRead - start);
+                return tokenValidationService.validate(jweToken)
+                        .onErrorResume(e -> {
+                            Outcome outcome = outcomeOf(e);
+                            metrics.record(routeId, Stage.TOKEN, outcome, System.nanoTime() - cookieRead);
+                            metrics.count(routeId, outcome);
+                            return handleValidationFailure(exchange.getResponse(), e).then(Mono.empty());
+                        })
+                        .flatMap(claims -> {
+                            metrics.record(routeId, Stage.TOKEN, Outcome.OK, System.nanoTime() - cookieRead);
+                            Object userId = claims.getClaim("userId");
+                            if (userId != null) {
+                                // Read by the rate limiter key, the response cache and the access log
+                                exchange.getAttributes().put(USER_ID_ATTRIBUTE, userId.toString());
+                            }
+                            return forward(exchange, chain, claims, routeId, Outcome.OK);
+                        });
             } else {
-                String[] clientIpAddresses = IpAddressUtil.resolveClientIps(request);
-                String ipAddressV4 = clientIpAddresses[0];
-                String ipAddressV6 = clientIpAddresses[1];
-                logger.info("Request to unsecured path from IPv4: {}, IPv6: {} to Path: {}", ipAddressV4, ipAddressV6, requestPath);
-                // Create a modified request with additional headers
-                ServerHttpRequest modifiedRequest = new ServerHttpRequestDecorator(request) {
-                    @Override
-                    public @NonNull HttpHeaders getHeaders() {
-                        HttpHeaders headers = super.getHeaders();
-                        headers.set(HEADER_IPV4, ipAddressV4);
-                        headers.set(HEADER_IPV6, ipAddressV6);
-                        return headers;
-                    }
-                };
-                return chain.filter(exchange.mutate().request(modifiedRequest).build());
+                // Only the client IP headers; client-supplied identity headers are still stripped
+                return forward(exchange, chain, null, routeId, Outcome.OPEN);
             }
-        };
+        }, FILTER_ORDER);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, JWTClaimsSet claims,
+                               String routeId, Outcome outcome) {
+        long start = System.nanoTime();
+        ClientIpAddresses clientIpAddresses = clientIpResolver.resolve(exchange);
+        long resolved = System.nanoTime();
+        // Headers are written once here instead of on every getHeaders() call downstream
+        ServerHttpRequest modifiedRequest = IdentityHeadersUtil.withIdentityHeaders(
+                exchange.getRequest(), claims, clientIpAddresses, identityAssertion);
+        long forwarded = System.nanoTime();
+        metrics.record(routeId, Stage.CLIENT_IP, outcome, resolved - start);
+        metrics.record(routeId, Stage.IDENTITY_HEADERS, outcome, forwarded - resolved);
+        metrics.count(routeId, outcome);
+        return chain.filter(exchange.mutate().request(modifiedRequest).build())
+                .doFinally(signal -> metrics.record(routeId, Stage.DOWNSTREAM, outcome, System.nanoTime() - forwarded));
+    }
+
+    private static Outcome outcomeOf(Throwable error) {
+        if (error instanceof TokenExpiredException) {
+            return Outcome.EXPIRED;
+        }
+        if (error instanceof TokenRevokedException) {
+            return Outcome.REVOKED;
+        }
+        return error instanceof RejectedExecutionException ? Outcome.REJECTED : Outcome.INVALID;
     }
 
-    private Mono<Void> handleException(ServerHttpResponse response, String message) {
+    private Mono<Void> handleValidationFailure(ServerHttpResponse response, Throwable error) {
+        if (error instanceof TokenExpiredException) {
+            return handleException(response, EXPIRED_BODY);
+        }
+        if (error instanceof TokenRevokedException) {
+            return handleException(response, REVOKED_BODY);
+        }
+        if (error instanceof RejectedExecutionException) {
+            // Decrypt queue is full: shed load and let the client retry instead of queueing behind the backlog
+            logger.warn("Token validation rejected, decrypt queue is saturated");
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+        return handleException(response, INVALID_BODY);
+    }
+
+    private Mono<Void> handleException(ServerHttpResponse response, byte[] body) {
         response.setStatusCode(HttpStatus.UNAUTHORIZED);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-        String responseBody = "{\"error\": \"" + message + "\"}";
-        DataBuffer buffer = response.bufferFactory().wrap(responseBody.getBytes());
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(body.length);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
         return response.writeWith(Mono.just(buffer));
     }
 
+    private static byte[] errorBody(String message) {
+        return ("{\"error\": \"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
     public static class Config {
         private boolean enableLogging; // Example property to enable logging
         private String customHeader;   // Example property for a custom header
@@ -0,0 +1,122 @@
+package com.multicloud.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each {@link AuthenticationFilter} stage as {@code gateway.auth.stage{stage, route, outcome}} and the
+ * final decision per request as {@code gateway.auth.outcomes{route, outcome}}.
+ * <p>
+ * Meters are created once per route and looked up from arrays afterwards, so recording costs no registry lookup.
+ * Tag values come from the enums below and at most {@link #MAXIMUM_ROUTES} route ids; later routes share the
+ * {@code other} tag, which keeps the Prometheus series count bounded.
+ */
+@Component
+public class AuthenticationStageMetrics {
+    static final String STAGE_TIMER = "gateway.auth.stage";
+    static final String OUTCOME_COUNTER = "gateway.auth.outcomes";
+    static final int MAXIMUM_ROUTES = 100;
+    private static final String UNKNOWN_ROUTE = "unknown";
+    private static final String OTHER_ROUTE = "other";
+
+    public enum Stage {
+        // Path classification and reading the token cookie
+        COOKIE,
+        // Claims cache lookup or queued decryption
+        TOKEN,
+        CLIENT_IP,
+        IDENTITY_HEADERS,
+        // Everything after authentication: rate limiter, response cache and the proxied call
+        DOWNSTREAM;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Outcome {
+        OPEN,
+        OK,
+        MISSING_COOKIE,
+        EXPIRED,
+        REVOKED,
+        INVALID,
+        REJECTED;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteMeters> routes = new ConcurrentHashMap<>();
+
+    public AuthenticationStageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String routeId, Stage stage, Outcome outcome, long nanos) {
+        meters(routeId).timer(stage, outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(String routeId, Outcome outcome) {
+        meters(routeId).counter(outcome).increment();
+    }
+
+    private RouteMeters meters(String routeId) {
+        String route = routeId != null ? routeId : UNKNOWN_ROUTE;
+        RouteMeters meters = routes.get(route);
+        if (meters != null) {
+            return meters;
+        }
+        if (routes.size() >= MAXIMUM_ROUTES) {
+            route = OTHER_ROUTE;
+        }
+        return routes.computeIfAbsent(route, RouteMeters::new);
+    }
+
+    private final class RouteMeters {
+        private final String route;
+        private final Timer[][] timers = new Timer[Stage.values().length][Outcome.values().length];
+        private final Counter[] counters = new Counter[Outcome.values().length];
+
+        RouteMeters(String route) {
+            this.route = route;
+        }
+
+        // Racing threads may both build a meter; the registry hands both the same instance
+        Timer timer(Stage stage, Outcome outcome) {
+            Timer timer = timers[stage.ordinal()][outcome.ordinal()];
+            if (timer == null) {
+                timer = Timer.builder(STAGE_TIMER)
+                        .description("Latency of one authentication filter stage")
+                        .tag("stage", stage.tag)
+                        .tag("route", route)
+                        .tag("outcome", outcome.tag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(1000))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(meterRegistry);
+                timers[stage.ordinal()][outcome.ordinal()] = timer;
+            }
+            return timer;
+        }
+
+        Counter counter(Outcome outcome) {
+            Counter counter = counters[outcome.ordinal()];
+            if (counter == null) {
+                counter = Counter.builder(OUTCOME_COUNTER)
+                        .description("Authentication filter decisions")
+                        .tag("route", route)
+                        .tag("outcome", outcome.tag)
+                        .register(meterRegistry);
+                counters[outcome.ordinal()] = counter;
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.multicloud.gateway.filter;
+
+import com.multicloud.gateway.concurrency.ConcurrencyLimits;
+import com.multicloud.gateway.config.ConcurrencyLimitProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Holds a permit of the route's {@link com.multicloud.gateway.concurrency.AdaptiveConcurrencyLimit} while the request
+ * is downstream and answers 503 with {@code Retry-After} when none is free. Runs after authentication and the response
+ * cache, so rejected tokens and cache hits never take a permit, and the permit is returned once the downstream
+ * response headers arrive: that is the latency the limit adapts to.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 1;
+
+    private final ConcurrencyLimits limits;
+    private final boolean enabled;
+    private final String retryAfter;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimits limits, ConcurrencyLimitProperties properties) {
+        this.limits = limits;
+        this.enabled = properties.enabled();
+        this.retryAfter = Long.toString(Math.max(1, properties.retryAfter().toSeconds()));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null) {
+            return chain.filter(exchange);
+        }
+        ConcurrencyLimits.RouteLimit routeLimit = limits.forRoute(route.getId());
+        if (!routeLimit.limit().tryAcquire()) {
+            routeLimit.rejected().increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return response.setComplete();
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                routeLimit.limit().release();
+                return;
+            }
+            long now = System.nanoTime();
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            routeLimit.limit().release(now - start, failed, now);
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.multicloud.gateway.filter;
+
+import com.multicloud.gateway.loadbalancer.InstanceLoad;
+import com.multicloud.gateway.loadbalancer.InstanceLoadRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Tracks in-flight requests and latency of the instance the load balancer picked for this exchange.
+ * Done here rather than in a {@code LoadBalancerLifecycle}, which is never told about cancelled requests and would
+ * leave them counted as in flight.
+ */
+@Component
+public class InstanceLoadFilter implements GlobalFilter, Ordered {
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    private final InstanceLoadRegistry registry;
+
+    public InstanceLoadFilter(InstanceLoadRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceLoad load = registry.load(response.getServer());
+        load.start();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            load.finish();
+            // A cancelled exchange says nothing about the instance, the client went away
+            if (signal != SignalType.CANCEL) {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                registry.record(load, System.nanoTime() - start, failed);
+            }
+        });
+    }
+}
@@ -0,0 +1,275 @@
+package com.multicloud.gateway.filter;
+
+import com.multicloud.gateway.cache.CachedResponse;
+import com.multicloud.gateway.cache.ResponseCache;
+import com.multicloud.gateway.config.ResponseCacheProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Serves cached GET responses per user for the paths in {@code gateway.response-cache.rules}, with {@code ETag} and
+ * {@code If-None-Match} handling, and drops the user's cached responses after any write they make.
+ * Requests without a user id (open paths, or routes without {@link AuthenticationFilter}) pass straight through.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+    // The response has to be wrapped before NettyWriteResponseFilter copies the downstream body into it
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final Base64.Encoder ETAG_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ResponseCache responseCache;
+    private final boolean enabled;
+    private final long maximumBodySize;
+    private final List<CacheRule> rules;
+
+    public ResponseCacheFilter(ResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.enabled = properties.enabled();
+        this.maximumBodySize = properties.maximumBodySize().toBytes();
+        this.rules = properties.rules().stream()
+                .map(rule -> new CacheRule(PathPatternParser.defaultInstance.parse(rule.path()), rule.ttl()))
+                .toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+        if (!enabled || userId == null) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.GET) {
+            Duration ttl = ttlFor(request);
+            if (ttl == null) {
+                return chain.filter(exchange);
+            }
+            return responseCache.lookup(userId, resource(request))
+                    .flatMap(lookup -> {
+                        if (lookup.response() != null) {
+                            return writeCached(exchange, lookup.response());
+                        }
+                        if (lookup.key() == null) {
+                            return chain.filter(exchange);
+                        }
+                        return chain.filter(exchange.mutate()
+                                .request(withoutConditionalHeaders(request))
+                                .response(new CachingResponse(exchange, lookup.key(), ttl))
+                                .build());
+                    });
+        }
+        if (method == HttpMethod.HEAD || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE) {
+            return chain.filter(exchange);
+        }
+        // Invalidate before the client sees the write's response, so its next read cannot be served the old state,
+        // and again once the write has gone through, so a read that raced it cannot re-cache the old state
+        exchange.getResponse().beforeCommit(() -> responseCache.invalidate(userId));
+        return chain.filter(exchange)
+                .then(Mono.defer(() -> responseCache.invalidate(userId)))
+                .onErrorResume(error -> responseCache.invalidate(userId).then(Mono.error(error)));
+    }
+
+    private Duration ttlFor(ServerHttpRequest request) {
+        for (CacheRule rule : rules) {
+            if (rule.pattern().matches(request.getPath().pathWithinApplication())) {
+                return rule.ttl();
+            }
+        }
+        return null;
+    }
+
+    private static String resource(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return query != null ? path + "?" + query : path;
+    }
+
+    private static Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_HEADER, "HIT");
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static ServerHttpRequest withoutConditionalHeaders(ServerHttpRequest request) {
+        // The backend must answer with a full body we can cache; If-None-Match is evaluated here instead
+        HttpHeaders headers = request.getHeaders();
+        if (!headers.containsKey(HttpHeaders.IF_NONE_MATCH) && !headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+            return request;
+        }
+        return request.mutate()
+                .headers(writable -> {
+                    writable.remove(HttpHeaders.IF_NONE_MATCH);
+                    writable.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                })
+                .build();
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        if (ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        // If-None-Match uses the weak comparison, so W/ prefixes are ignored on both sides
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || opaque.equals(stripWeak(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String computeEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // 128 bits of the digest are plenty to tell representations apart
+            return "\"" + ETAG_ENCODER.encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] toBytes(List<DataBuffer> buffers) {
+        int size = 0;
+        for (DataBuffer buffer : buffers) {
+            size += buffer.readableByteCount();
+        }
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, offset, length);
+            offset += length;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+
+    private record CacheRule(PathPattern pattern, Duration ttl) {
+    }
+
+    /**
+     * Buffers a cacheable 200 body, stores it and replays it to the client (or answers 304).
+     * Anything that is not safe to share across this user's requests is written through untouched.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+        private final ServerHttpRequest originalRequest;
+        private final String key;
+        private final Duration ttl;
+
+        CachingResponse(ServerWebExchange exchange, String key, Duration ttl) {
+            super(exchange.getResponse());
+            this.originalRequest = exchange.getRequest();
+            this.key = key;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public @NonNull Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+            // Bodies without a Content-Length are counted as they arrive: buffering stops at the first chunk past
+            // the limit, and that prefix plus the rest of the body is streamed through uncached
+            long[] size = {0};
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> (size[0] += buffer.readableByteCount()) > maximumBodySize)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .switchOnFirst((first, chunks) -> {
+                        if (size[0] > maximumBodySize) {
+                            return super.writeWith(chunks.concatMapIterable(buffers -> buffers));
+                        }
+                        // Under the limit the only list is the whole body, emitted on completion
+                        return chunks.next()
+                                .map(ResponseCacheFilter::toBytes)
+                                .defaultIfEmpty(new byte[0])
+                                .flatMap(this::store);
+                    })
+                    .then();
+        }
+
+        private Mono<Void> store(byte[] bytes) {
+            HttpHeaders headers = getHeaders();
+            String etag = headers.getETag();
+            if (etag == null || etag.startsWith("W/")) {
+                etag = computeEtag(bytes);
+                headers.setETag(etag);
+            }
+            headers.set(CACHE_HEADER, "MISS");
+            String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+            responseCache.put(key, new CachedResponse(System.currentTimeMillis() + ttl.toMillis(), etag, contentType, bytes));
+
+            if (notModified(originalRequest, etag)) {
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                return getDelegate().setComplete();
+            }
+            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        }
+
+        private boolean isCacheable() {
+            if (!HttpStatus.OK.equals(getStatusCode())) {
+                return false;
+            }
+            HttpHeaders headers = getHeaders();
+            // Encoded bodies depend on the client's Accept-Encoding, cookies and Vary: * are never shareable
+            if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            String vary = headers.getFirst(HttpHeaders.VARY);
+            String cacheControl = headers.getCacheControl();
+            if ("*".equals(vary) || (cacheControl != null && cacheControl.contains("no-store"))) {
+                return false;
+            }
+            long contentLength = headers.getContentLength();
+            return contentLength < 0 || contentLength <= maximumBodySize;
+        }
+    }
+}
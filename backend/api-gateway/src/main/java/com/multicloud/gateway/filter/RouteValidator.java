@@ -1,5 +1,6 @@
 package com.multicloud.gateway.filter;
 
+import com.multicloud.commonlib.security.PathClassifier;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 
@@ -13,13 +14,12 @@ public class RouteValidator {
         // Prevent instantiation
     }
 
+    // Open endpoints compiled once into a trie, shared list with the auth service
+    private static final PathClassifier OPEN_PATHS = PathClassifier.compile(OPEN_API_ENDPOINTS);
+
     // Predicate to determine if a request is secured (requires authentication)
     public static final Predicate<ServerHttpRequest> isSecured =
-            request -> OPEN_API_ENDPOINTS.stream()
-                    .noneMatch(url -> {
-                        String path = request.getURI().getPath();
-                        return path.startsWith(url.replace("/**", ""));  // Handles wildcard properly
-                    }); // Check if the request path starts with any open API endpoint
+            request -> !OPEN_PATHS.matches(request.getPath().value());
 
     public static Predicate<ServerHttpRequest> getIsSecured() {
         return isSecured;
@@ -0,0 +1,85 @@
+package com.multicloud.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Peak-EWMA latency and in-flight requests of one service instance.
+ * <p>
+ * A sample above the average replaces it at once, lower samples pull it down with weight {@code 1 - e^(-elapsed/decay)}.
+ * The average also decays while the instance is idle, so an instance that was slow once is tried again later.
+ */
+public final class InstanceLoad {
+    // Instances without any sample yet take one request at a time until their first response arrives
+    private static final double UNMEASURED_PENALTY = 1e12;
+
+    private final String instance;
+    private final double decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double cost;
+    private long stamp;
+
+    private Counter decisions;
+    private List<Meter> meters = List.of();
+
+    InstanceLoad(String instance, long decayNanos, long now) {
+        this.instance = instance;
+        this.decayNanos = decayNanos;
+        this.stamp = now;
+    }
+
+    public String instance() {
+        return instance;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    public void finish() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void observe(long latencyNanos, long now) {
+        long elapsed = Math.max(now - stamp, 0);
+        stamp = now;
+        if (latencyNanos > cost) {
+            cost = latencyNanos;
+        } else {
+            double weight = Math.exp(-elapsed / decayNanos);
+            cost = cost * weight + latencyNanos * (1 - weight);
+        }
+    }
+
+    /**
+     * @return the expected wait for one more request: decayed latency times the requests it would queue behind
+     */
+    public synchronized double score(long now) {
+        int pending = inFlight.get();
+        if (cost == 0) {
+            return pending == 0 ? 0 : UNMEASURED_PENALTY + pending;
+        }
+        double decayed = cost * Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+        return decayed * (pending + 1);
+    }
+
+    void bind(Counter decisions, List<Meter> meters) {
+        this.decisions = decisions;
+        this.meters = meters;
+    }
+
+    void chosen() {
+        decisions.increment();
+    }
+
+    List<Meter> meters() {
+        return meters;
+    }
+}
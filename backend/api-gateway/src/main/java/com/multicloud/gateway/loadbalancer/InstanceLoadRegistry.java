@@ -0,0 +1,104 @@
+package com.multicloud.gateway.loadbalancer;
+
+import com.multicloud.gateway.config.LoadBalancerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared {@link InstanceLoad} per service instance, written by {@code InstanceLoadFilter} and read by
+ * {@link PeakEwmaLoadBalancer}. Load balancers live in per-service child contexts, so the state is kept here.
+ */
+@Component
+public class InstanceLoadRegistry {
+    private static final String METRIC_DECISIONS = "gateway.load_balancer.decisions";
+    private static final String METRIC_SCORE = "gateway.load_balancer.score";
+    private static final String METRIC_IN_FLIGHT = "gateway.load_balancer.in_flight";
+
+    private final MeterRegistry meterRegistry;
+    private final long decayNanos;
+    private final long errorPenaltyNanos;
+    private final Map<String, Map<String, InstanceLoad>> services = new ConcurrentHashMap<>();
+    private final Map<String, Counter> unavailable = new ConcurrentHashMap<>();
+
+    public InstanceLoadRegistry(LoadBalancerProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = properties.decay().toNanos();
+        this.errorPenaltyNanos = properties.errorPenalty().toNanos();
+    }
+
+    public InstanceLoad load(ServiceInstance instance) {
+        String serviceId = instance.getServiceId();
+        return services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(instance), key -> create(serviceId, key));
+    }
+
+    public void record(InstanceLoad load, long latencyNanos, boolean failed) {
+        load.observe(failed ? Math.max(latencyNanos, errorPenaltyNanos) : latencyNanos, System.nanoTime());
+    }
+
+    void recordUnavailable(String serviceId) {
+        unavailable.computeIfAbsent(serviceId, id -> Counter.builder(METRIC_DECISIONS)
+                        .description("Instances chosen by the load balancer")
+                        .tags("service", id, "instance", "none")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * Drops the state of instances that are no longer in the service's discovery list.
+     */
+    void retain(String serviceId, List<ServiceInstance> instances) {
+        Map<String, InstanceLoad> loads = services.get(serviceId);
+        if (loads == null || loads.size() <= instances.size()) {
+            return;
+        }
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            current.add(key(instance));
+        }
+        loads.entrySet().removeIf(entry -> {
+            if (current.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().meters().forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private InstanceLoad create(String serviceId, String key) {
+        InstanceLoad load = new InstanceLoad(key, decayNanos, System.nanoTime());
+        Tags tags = Tags.of("service", serviceId, "instance", key);
+        Counter decisions = Counter.builder(METRIC_DECISIONS)
+                .description("Instances chosen by the load balancer")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge score = Gauge.builder(METRIC_SCORE, load, instance -> instance.score(System.nanoTime()) / 1e6)
+                .description("Peak-EWMA latency times pending requests; the lower of two random instances is chosen")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge inFlight = Gauge.builder(METRIC_IN_FLIGHT, load, InstanceLoad::inFlight)
+                .description("Requests currently forwarded to the instance")
+                .tags(tags)
+                .register(meterRegistry);
+        load.bind(decisions, List.<Meter>of(decisions, score, inFlight));
+        return load;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,71 @@
+package com.multicloud.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over {@link InstanceLoad#score}: picks two distinct instances at random and sends the
+ * request to the one with the lower latency-times-pending score. Unlike least-loaded selection over all instances,
+ * this does not make every gateway node pile onto the same momentarily fastest instance.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLoadRegistry registry;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                InstanceLoadRegistry registry) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            registry.recordUnavailable(serviceId);
+            return new EmptyResponse();
+        }
+        registry.retain(serviceId, instances);
+        ServiceInstance chosen;
+        InstanceLoad chosenLoad;
+        if (instances.size() == 1) {
+            chosen = instances.get(0);
+            chosenLoad = registry.load(chosen);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(instances.size());
+            // Second index drawn from the remaining n - 1 instances so the two candidates always differ
+            int second = random.nextInt(instances.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            ServiceInstance a = instances.get(first);
+            ServiceInstance b = instances.get(second);
+            InstanceLoad loadA = registry.load(a);
+            InstanceLoad loadB = registry.load(b);
+            long now = System.nanoTime();
+            boolean pickA = loadA.score(now) <= loadB.score(now);
+            chosen = pickA ? a : b;
+            chosenLoad = pickA ? loadA : loadB;
+        }
+        chosenLoad.chosen();
+        return new DefaultResponse(chosen);
+    }
+}
@@ -0,0 +1,278 @@
+package com.multicloud.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.multicloud.gateway.cache.CachePolicies;
+import com.multicloud.gateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter shared by all gateway nodes through Redis, with a per-node near-cache.
+ * <p>
+ * Each Redis call atomically leases up to {@code leaseTokens} tokens. The node then serves the following requests
+ * for that key from the lease without a round trip, and a denial from Redis is remembered locally until the bucket
+ * can have refilled. Leases expire after {@code lease-ttl}, which bounds how far the cluster can overshoot the quota.
+ * When Redis is slow or down the limiter fails open and counts it. How many keys a node keeps, and for how long
+ * after their last request, is the {@code rate-limiter-buckets} cache policy.
+ */
+@Primary
+@Component
+public class NearCacheRateLimiter extends AbstractRateLimiter<NearCacheRateLimiter.Config> {
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheRateLimiter.class);
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "near-cache-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    static final String BUCKETS_CACHE_NAME = "rate-limiter-buckets";
+    private static final String METRIC_DECISIONS = "gateway.rate_limiter.decisions";
+    private static final RedisScript<List<Long>> SCRIPT = loadScript();
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Config defaultConfig;
+    private final Map<String, Config> routeConfigs;
+    private final long leaseTtlNanos;
+    private final Duration redisTimeout;
+    private final Cache<String, LocalBucket> buckets;
+
+    private final Counter localAllowed;
+    private final Counter localDenied;
+    private final Counter redisAllowed;
+    private final Counter redisDenied;
+    private final Counter failOpen;
+    private final Timer redisTimer;
+
+    public NearCacheRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                                RateLimitProperties properties,
+                                CachePolicies cachePolicies,
+                                ConfigurationService configurationService,
+                                MeterRegistry meterRegistry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.defaultConfig = new Config()
+                .setReplenishRate(properties.replenishRate())
+                .setBurstCapacity(properties.burstCapacity())
+                .setRequestedTokens(properties.requestedTokens())
+                .setLeaseTokens(properties.leaseTokens());
+        this.routeConfigs = new HashMap<>();
+        properties.routes().forEach((routeId, quota) -> routeConfigs.put(routeId, defaultConfig.with(quota)));
+        this.leaseTtlNanos = properties.leaseTtl().toNanos();
+        this.redisTimeout = properties.redisTimeout();
+        this.buckets = cachePolicies.build(BUCKETS_CACHE_NAME);
+
+        this.localAllowed = decisionCounter(meterRegistry, "local_allowed");
+        this.localDenied = decisionCounter(meterRegistry, "local_denied");
+        this.redisAllowed = decisionCounter(meterRegistry, "redis_allowed");
+        this.redisDenied = decisionCounter(meterRegistry, "redis_denied");
+        this.failOpen = decisionCounter(meterRegistry, "fail_open");
+        this.redisTimer = Timer.builder("gateway.rate_limiter.redis")
+                .description("Round trip of the rate limiter script, including timeouts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        logger.info("Near-cache rate limiter defaults: {}, route overrides: {}", defaultConfig, routeConfigs.keySet());
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        String key = routeId + "." + id;
+        LocalBucket bucket = buckets.get(key, ignored -> new LocalBucket());
+        long now = System.nanoTime();
+
+        // Common case: answered from this node's lease or remembered denial without touching Redis
+        long local = bucket.tryAcquire(now, config.getRequestedTokens());
+        if (local >= 0) {
+            localAllowed.increment();
+            return Mono.just(new Response(true, headers(config, local)));
+        }
+        if (local == LocalBucket.DENIED) {
+            localDenied.increment();
+            return Mono.just(new Response(false, headers(config, 0)));
+        }
+
+        int lease = Math.max(config.getRequestedTokens(), Math.min(config.getLeaseTokens(), config.getBurstCapacity()));
+        List<String> args = List.of(
+                Integer.toString(config.getReplenishRate()),
+                Integer.toString(config.getBurstCapacity()),
+                Integer.toString(config.getRequestedTokens()),
+                Integer.toString(lease));
+        long start = System.nanoTime();
+        return redisTemplate.execute(SCRIPT, keys(key), args)
+                .next()
+                .timeout(redisTimeout)
+                .map(result -> {
+                    redisTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    long granted = result.get(0);
+                    long remaining = result.get(1);
+                    if (granted >= config.getRequestedTokens()) {
+                        redisAllowed.increment();
+                        bucket.lease(System.nanoTime() + leaseTtlNanos, granted - config.getRequestedTokens());
+                        return new Response(true, headers(config, remaining + granted - config.getRequestedTokens()));
+                    }
+                    // Hold the denial until at least one request's worth of tokens can have been refilled
+                    redisDenied.increment();
+                    long refillNanos = TimeUnit.SECONDS.toNanos(config.getRequestedTokens()) / config.getReplenishRate();
+                    bucket.deny(System.nanoTime() + Math.min(refillNanos, leaseTtlNanos));
+                    return new Response(false, headers(config, remaining));
+                })
+                .onErrorResume(error -> {
+                    redisTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failOpen.increment();
+                    logger.debug("Rate limiter failing open for route {}: {}", routeId, error.toString());
+                    return Mono.just(new Response(true, headers(config, -1)));
+                });
+    }
+
+    Config loadConfiguration(String routeId) {
+        // Filter args on the route win, then gateway.rate-limit.routes, then the defaults
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = routeConfigs.getOrDefault(routeId, defaultConfig);
+        }
+        return config;
+    }
+
+    static List<String> keys(String key) {
+        // Braces keep both keys in one hash slot on Redis Cluster
+        String prefix = "near_cache_rate_limiter.{" + key + "}.";
+        return List.of(prefix + "tokens", prefix + "timestamp");
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        return Map.of(
+                REMAINING_HEADER, Long.toString(remaining),
+                REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_DECISIONS)
+                .description("Rate limiter decisions by where they were made")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> loadScript() {
+        return (RedisScript) RedisScript.of(new ClassPathResource("META-INF/scripts/near_cache_rate_limiter.lua"), List.class);
+    }
+
+    /**
+     * Node-local view of one key: tokens left from the last lease, or a denial remembered from Redis.
+     */
+    static final class LocalBucket {
+        static final long DENIED = -1;
+        static final long ASK_REDIS = -2;
+
+        private long tokens;
+        private long leaseExpiresAt;
+        private long deniedUntil;
+        private boolean denied;
+
+        /**
+         * @return tokens left after the acquire, {@link #DENIED}, or {@link #ASK_REDIS} when there is no local answer
+         */
+        synchronized long tryAcquire(long now, int requested) {
+            if (denied) {
+                if (now - deniedUntil < 0) {
+                    return DENIED;
+                }
+                denied = false;
+            }
+            if (tokens >= requested && now - leaseExpiresAt < 0) {
+                tokens -= requested;
+                return tokens;
+            }
+            return ASK_REDIS;
+        }
+
+        synchronized void lease(long expiresAt, long leasedTokens) {
+            tokens = leasedTokens;
+            leaseExpiresAt = expiresAt;
+            denied = false;
+        }
+
+        synchronized void deny(long until) {
+            tokens = 0;
+            denied = true;
+            deniedUntil = until;
+        }
+    }
+
+    public static class Config {
+        private int replenishRate;
+        private int burstCapacity;
+        private int requestedTokens = 1;
+        private int leaseTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        public int getLeaseTokens() {
+            return leaseTokens;
+        }
+
+        public Config setLeaseTokens(int leaseTokens) {
+            this.leaseTokens = leaseTokens;
+            return this;
+        }
+
+        Config with(RateLimitProperties.Quota quota) {
+            return new Config()
+                    .setReplenishRate(quota.replenishRate() != null ? quota.replenishRate() : replenishRate)
+                    .setBurstCapacity(quota.burstCapacity() != null ? quota.burstCapacity() : burstCapacity)
+                    .setRequestedTokens(quota.requestedTokens() != null ? quota.requestedTokens() : requestedTokens)
+                    .setLeaseTokens(quota.leaseTokens() != null ? quota.leaseTokens() : leaseTokens);
+        }
+
+        @Override
+        public String toString() {
+            return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+                    + ", requestedTokens=" + requestedTokens + ", leaseTokens=" + leaseTokens + "}";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.multicloud.gateway.revocation;
+
+import com.multicloud.commonlib.events.SessionRevokedEvent;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.multicloud.commonlib.constants.AuthConstants.SESSION_ID_CLAIM;
+
+/**
+ * Sessions revoked by the auth service, as announced on the bus with {@link SessionRevokedEvent}.
+ * <p>
+ * Every token is checked against a {@link TimeBucketedBloomFilter} first, which answers "not revoked" for almost all
+ * of them without locking or allocating. Only a positive is confirmed against the exact map, so a false positive
+ * never rejects a valid token. Entries are dropped once {@code retention} has passed since the revocation, by which
+ * time every access token issued for the session has expired on its own.
+ * Revocations are only kept in memory; a gateway that restarts accepts earlier revoked tokens until they expire.
+ */
+@Component
+public class RevokedSessions {
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSessions.class);
+
+    private final long retentionMillis;
+    private final TimeBucketedBloomFilter filter;
+    // Session id -> epoch millis after which the entry can be forgotten
+    private final Map<Long, Long> sessions = new ConcurrentHashMap<>();
+    private volatile long nextPurge;
+
+    public RevokedSessions(@Value("${security.jwt.revocation.retention:1h}") Duration retention,
+                           @Value("${security.jwt.revocation.buckets:4}") int buckets,
+                           @Value("${security.jwt.revocation.expected-per-bucket:10000}") int expectedPerBucket,
+                           MeterRegistry meterRegistry) {
+        this.retentionMillis = retention.toMillis();
+        long now = System.currentTimeMillis();
+        this.filter = new TimeBucketedBloomFilter(buckets, retention, expectedPerBucket, 0.01, now);
+        this.nextPurge = now + retentionMillis;
+        meterRegistry.gauge("gateway.revoked_sessions", sessions, Map::size);
+        logger.info("Revoked session filter keeps revocations for {} in {} buckets", retention, buckets);
+    }
+
+    @EventListener
+    public void onSessionRevoked(SessionRevokedEvent event) {
+        logger.info("Revoking {} session(s) of user {}", event.getSessionIds().size(), event.getUserId());
+        revoke(event.getSessionIds(), event.getRevokedAt());
+    }
+
+    public void revoke(Collection<Long> sessionIds, long revokedAt) {
+        long now = System.currentTimeMillis();
+        long expiresAt = revokedAt + retentionMillis;
+        if (expiresAt <= now) {
+            return;
+        }
+        for (Long sessionId : sessionIds) {
+            sessions.merge(sessionId, expiresAt, Math::max);
+            filter.put(sessionId, now);
+        }
+        if (now >= nextPurge) {
+            nextPurge = now + retentionMillis;
+            sessions.values().removeIf(entryExpiresAt -> entryExpiresAt <= now);
+        }
+    }
+
+    /**
+     * Checks the token's session; tokens issued without a session id are never reported as revoked.
+     */
+    public boolean isRevoked(JWTClaimsSet claims) {
+        if (!(claims.getClaim(SESSION_ID_CLAIM) instanceof Number sessionId)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!filter.mightContain(sessionId.longValue(), now)) {
+            return false;
+        }
+        Long expiresAt = sessions.get(sessionId.longValue());
+        return expiresAt != null && expiresAt > now;
+    }
+}
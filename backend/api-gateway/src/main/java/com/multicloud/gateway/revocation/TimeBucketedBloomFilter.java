@@ -0,0 +1,109 @@
+package com.multicloud.gateway.revocation;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over {@code long} keys that forgets keys after a retention period.
+ * <p>
+ * Time is split into {@code bucketCount} buckets of {@code retention / (bucketCount - 1)}, each with its own bit set.
+ * Keys go into the current bucket and lookups check all of them; when a bucket's slot comes round again it is
+ * cleared, so a key is kept for at least {@code retention} and at most one bucket width longer.
+ * Lookups are lock-free and allocation-free; inserts and rotation take the monitor.
+ */
+public final class TimeBucketedBloomFilter {
+    private final long bucketWidthMillis;
+    private final int hashes;
+    private final int bitMask;
+    private final AtomicLongArray[] buckets;
+    private volatile int current;
+    private volatile long currentEndsAt;
+
+    /**
+     * @param expectedInsertionsPerBucket keys per bucket at which the false positive rate is reached
+     */
+    public TimeBucketedBloomFilter(int bucketCount, Duration retention, int expectedInsertionsPerBucket,
+                                   double falsePositiveRate, long now) {
+        if (bucketCount < 2) {
+            throw new IllegalArgumentException("At least two buckets are needed: " + bucketCount);
+        }
+        this.bucketWidthMillis = Math.max(1, retention.toMillis() / (bucketCount - 1));
+        double optimalBits = -expectedInsertionsPerBucket * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int bits = Math.max(64, Integer.highestOneBit((int) Math.min(1 << 30, Math.ceil(optimalBits)) - 1) << 1);
+        this.bitMask = bits - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertionsPerBucket * Math.log(2)));
+        this.buckets = new AtomicLongArray[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new AtomicLongArray(bits / 64);
+        }
+        this.currentEndsAt = now + bucketWidthMillis;
+    }
+
+    public synchronized void put(long key, long now) {
+        advance(now);
+        AtomicLongArray bits = buckets[current];
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int index = (h1 + i * h2) & bitMask;
+            int word = index >>> 6;
+            bits.set(word, bits.get(word) | (1L << index));
+        }
+    }
+
+    public boolean mightContain(long key, long now) {
+        if (now >= currentEndsAt) {
+            synchronized (this) {
+                advance(now);
+            }
+        }
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (AtomicLongArray bits : buckets) {
+            if (contains(bits, h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(AtomicLongArray bits, int h1, int h2) {
+        for (int i = 0; i < hashes; i++) {
+            int index = (h1 + i * h2) & bitMask;
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Caller holds the monitor
+    private void advance(long now) {
+        int rotations = 0;
+        while (now >= currentEndsAt && rotations < buckets.length) {
+            int next = (current + 1) % buckets.length;
+            // The oldest bucket only holds keys that are at least one retention period old
+            AtomicLongArray bits = buckets[next];
+            for (int i = 0; i < bits.length(); i++) {
+                bits.set(i, 0);
+            }
+            current = next;
+            currentEndsAt += bucketWidthMillis;
+            rotations++;
+        }
+        if (now >= currentEndsAt) {
+            // Idle for longer than the whole window: every bucket is empty now
+            currentEndsAt = now + bucketWidthMillis;
+        }
+    }
+
+    private static long mix(long key) {
+        // SplitMix64 finalizer: consecutive ids end up far apart
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
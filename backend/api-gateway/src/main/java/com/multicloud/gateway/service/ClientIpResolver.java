@@ -0,0 +1,121 @@
+package com.multicloud.gateway.service;
+
+import com.multicloud.gateway.util.CidrSet;
+import com.multicloud.gateway.util.ClientIpAddresses;
+import com.multicloud.gateway.util.IpAddressUtil;
+import com.multicloud.gateway.util.IpLiteralUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Resolves the real client address behind our own proxies.
+ * <p>
+ * Forwarding headers are only read when the TCP peer is a trusted proxy, and then walked right-to-left:
+ * every hop appended by a trusted proxy is skipped and the first untrusted hop is the client. Anything to its
+ * left was written by the client and is ignored, so a spoofed header cannot change the rate limiter key.
+ */
+@Service
+public class ClientIpResolver {
+    private static final Logger logger = LoggerFactory.getLogger(ClientIpResolver.class);
+    public static final String CLIENT_IP_ATTRIBUTE = ClientIpResolver.class.getName() + ".clientIp";
+    private static final String FORWARDED_HEADER = "Forwarded";
+
+    private final CidrSet trustedProxies;
+    private final List<String> forwardedHeaders;
+
+    public ClientIpResolver(@Value("${gateway.client-ip.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,fc00::/7}") List<String> trustedProxies,
+                            @Value("${gateway.client-ip.forwarded-headers:X-Forwarded-For}") List<String> forwardedHeaders) {
+        this.trustedProxies = CidrSet.parse(trustedProxies);
+        this.forwardedHeaders = List.copyOf(forwardedHeaders);
+        logger.info("Client IP resolution trusts {} and reads {}", trustedProxies, forwardedHeaders);
+    }
+
+    /**
+     * Resolves the client address once per exchange; later filters reuse the cached result.
+     */
+    public ClientIpAddresses resolve(ServerWebExchange exchange) {
+        ClientIpAddresses cached = exchange.getAttribute(CLIENT_IP_ATTRIBUTE);
+        if (cached != null) {
+            return cached;
+        }
+        ClientIpAddresses resolved = resolve(exchange.getRequest());
+        exchange.getAttributes().put(CLIENT_IP_ATTRIBUTE, resolved);
+        return resolved;
+    }
+
+    public ClientIpAddresses resolve(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        InetAddress peer = remoteAddress != null ? remoteAddress.getAddress() : null;
+        if (peer == null) {
+            return ClientIpAddresses.UNKNOWN;
+        }
+        long[] address = new long[2];
+        IpAddressUtil.toBits(peer, address);
+        if (trustedProxies.isEmpty() || !trustedProxies.contains(address[0], address[1])) {
+            // Direct connection: whatever the headers say was written by the client itself
+            return IpAddressUtil.fromInetAddress(peer);
+        }
+
+        for (String header : forwardedHeaders) {
+            List<String> values = request.getHeaders().get(header);
+            if (values == null || values.isEmpty()) {
+                continue;
+            }
+            ClientIpAddresses client = walkHops(values, header.equalsIgnoreCase(FORWARDED_HEADER), address);
+            if (client != null) {
+                return client;
+            }
+        }
+        return IpAddressUtil.fromInetAddress(peer);
+    }
+
+    // Returns null when the header holds no hops at all, so the next configured header is tried
+    private ClientIpAddresses walkHops(List<String> values, boolean forwarded, long[] address) {
+        int trustedKind = IpLiteralUtil.INVALID;
+        // Repeated header lines are one list in order, so the last line holds the nearest hops
+        for (int line = values.size() - 1; line >= 0; line--) {
+            String value = values.get(line);
+            int end = value.length();
+            while (true) {
+                int comma = value.lastIndexOf(',', end - 1);
+                int start = comma + 1;
+                if (!isBlank(value, start, end)) {
+                    int kind = forwarded
+                            ? IpAddressUtil.parseForwardedFor(value, start, end, address)
+                            : IpAddressUtil.parseHop(value, start, end, address);
+                    if (kind == IpLiteralUtil.INVALID) {
+                        // A trusted proxy recorded something that is not an address; do not look further left
+                        return ClientIpAddresses.INVALID;
+                    }
+                    if (!trustedProxies.contains(address[0], address[1])) {
+                        return IpAddressUtil.toClientIpAddresses(kind, address);
+                    }
+                    trustedKind = kind;
+                }
+                if (comma < 0) {
+                    break;
+                }
+                end = comma;
+            }
+        }
+        // Every hop is one of ours (e.g. an internal caller): the leftmost one is the client
+        return trustedKind == IpLiteralUtil.INVALID ? null : IpAddressUtil.toClientIpAddresses(trustedKind, address);
+    }
+
+    private static boolean isBlank(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
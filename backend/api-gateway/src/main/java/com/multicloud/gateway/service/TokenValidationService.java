@@ -0,0 +1,149 @@
+package com.multicloud.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.multicloud.commonlib.security.UnknownKeyIdException;
+import com.multicloud.gateway.cache.CachePolicies;
+import com.multicloud.gateway.exception.InvalidTokenException;
+import com.multicloud.gateway.exception.TokenExpiredException;
+import com.multicloud.gateway.exception.TokenRevokedException;
+import com.multicloud.gateway.revocation.RevokedSessions;
+import com.multicloud.gateway.util.JweUtil;
+import com.multicloud.gateway.util.TokenHashUtil;
+import com.multicloud.gateway.util.TokenPrecheck;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TokenValidationService {
+    static final String REJECTED_TOKENS_CACHE = "rejected-tokens";
+
+    private final JweUtil jweUtil;
+    private final TokenPrecheck tokenPrecheck;
+    private final RevokedSessions revokedSessions;
+    private final Scheduler decryptScheduler;
+    private final Timer decryptTimer;
+    private final Counter coalescedDecrypts;
+    private final Counter malformedTokens;
+    // Hashes of tokens that recently failed to decrypt or had expired, so replaying them costs no crypto
+    private final Cache<String, Rejection> rejectedTokens;
+    // Decrypts currently running, by token hash, so parallel requests with the same cold token share one
+    private final Map<String, Mono<JWTClaimsSet>> pendingDecrypts = new ConcurrentHashMap<>();
+
+    public TokenValidationService(JweUtil jweUtil,
+                                  TokenPrecheck tokenPrecheck,
+                                  RevokedSessions revokedSessions,
+                                  @Qualifier("jweDecryptScheduler") Scheduler decryptScheduler,
+                                  CachePolicies cachePolicies,
+                                  MeterRegistry meterRegistry) {
+        this.jweUtil = jweUtil;
+        this.tokenPrecheck = tokenPrecheck;
+        this.revokedSessions = revokedSessions;
+        this.decryptScheduler = decryptScheduler;
+        this.decryptTimer = Timer.builder("gateway.jwe.decrypt")
+                .description("Time spent decrypting and verifying a JWE token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalescedDecrypts = Counter.builder("gateway.jwe.decrypt.coalesced")
+                .description("Validations that joined a decrypt of the same token already in progress")
+                .register(meterRegistry);
+        this.malformedTokens = Counter.builder("gateway.jwe.precheck.rejected")
+                .description("Tokens rejected by the structural check, before any crypto")
+                .register(meterRegistry);
+        this.rejectedTokens = cachePolicies.build(REJECTED_TOKENS_CACHE);
+    }
+
+    /**
+     * Resolves the claims of a token. Cache hits complete on the calling thread; misses are decrypted on the
+     * bounded decrypt scheduler and fail with a {@link java.util.concurrent.RejectedExecutionException} when it is saturated.
+     * Concurrent misses for the same token wait on a single decrypt. On a miss, malformed tokens and tokens that were
+     * rejected recently fail without any crypto.
+     */
+    public Mono<JWTClaimsSet> validate(String token) {
+        String tokenHash = TokenHashUtil.sha256(token);
+        JWTClaimsSet cachedClaims;
+        try {
+            cachedClaims = jweUtil.getCachedClaims(tokenHash);
+        } catch (TokenExpiredException e) {
+            return Mono.error(e);
+        }
+        if (cachedClaims != null) {
+            // Checked on every request, not only when decrypting: a revocation must also hit cached claims
+            return revokedSessions.isRevoked(cachedClaims)
+                    ? Mono.error(new TokenRevokedException("Token session has been revoked"))
+                    : Mono.just(cachedClaims);
+        }
+        // Only tokens that are not already verified pay for parsing the header
+        if (!tokenPrecheck.isPlausible(token)) {
+            malformedTokens.increment();
+            return Mono.error(new InvalidTokenException("Malformed token"));
+        }
+        Rejection rejection = rejectedTokens.getIfPresent(tokenHash);
+        if (rejection != null) {
+            return Mono.error(rejection.toException());
+        }
+        return pendingDecrypt(token, tokenHash)
+                // Hand the rest of the filter chain back so decrypt threads only ever do crypto
+                .publishOn(Schedulers.parallel());
+    }
+
+    private Mono<JWTClaimsSet> pendingDecrypt(String token, String tokenHash) {
+        Mono<JWTClaimsSet> pending = pendingDecrypts.get(tokenHash);
+        if (pending != null) {
+            coalescedDecrypts.increment();
+            return pending;
+        }
+        return pendingDecrypts.computeIfAbsent(tokenHash, hash -> Mono.fromCallable(() -> decrypt(token, hash))
+                .subscribeOn(decryptScheduler)
+                // By the time the entry is removed the claims are in the claims cache, or the token failed
+                .doFinally(signal -> pendingDecrypts.remove(hash))
+                // cache() rather than share(): a waiter cancelling must not cancel the decrypt for the others,
+                // and a late subscriber still gets the result instead of decrypting again
+                .cache());
+    }
+
+    private JWTClaimsSet decrypt(String token, String tokenHash) throws Exception {
+        Timer.Sample sample = Timer.start();
+        try {
+            JWTClaimsSet claims;
+            try {
+                claims = jweUtil.decryptAndVerify(token, tokenHash);
+            } catch (TokenExpiredException e) {
+                rejectedTokens.put(tokenHash, Rejection.EXPIRED);
+                throw e;
+            } catch (InvalidTokenException e) {
+                // An unknown key id may only mean the key ring has not reloaded a newly rotated key yet
+                if (!(e.getCause() instanceof UnknownKeyIdException)) {
+                    rejectedTokens.put(tokenHash, Rejection.INVALID);
+                }
+                throw e;
+            }
+            if (revokedSessions.isRevoked(claims)) {
+                throw new TokenRevokedException("Token session has been revoked");
+            }
+            return claims;
+        } finally {
+            sample.stop(decryptTimer);
+        }
+    }
+
+    private enum Rejection {
+        EXPIRED,
+        INVALID;
+
+        Exception toException() {
+            return this == EXPIRED
+                    ? new TokenExpiredException("Token has expired")
+                    : new InvalidTokenException("Token was rejected recently");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.multicloud.gateway.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of IPv4 and IPv6 CIDR blocks stored as a binary prefix trie in flat arrays.
+ * IPv4 blocks are kept in the IPv4-mapped IPv6 range, so one lookup of at most 128 steps covers both families.
+ */
+public final class CidrSet {
+    private static final int IPV4_MAPPED_PREFIX_LENGTH = 96;
+
+    // Node 0 is the root; a child index of 0 means "no child" because the root is never a child
+    private final int[] zero;
+    private final int[] one;
+    private final boolean[] terminal;
+    private final int size;
+
+    private CidrSet(int[] zero, int[] one, boolean[] terminal, int size) {
+        this.zero = zero;
+        this.one = one;
+        this.terminal = terminal;
+        this.size = size;
+    }
+
+    /**
+     * Builds the set from blocks such as {@code 10.0.0.0/8}, {@code fc00::/7} or a single address.
+     *
+     * @throws IllegalArgumentException if a block is not a valid CIDR
+     */
+    public static CidrSet parse(Collection<String> cidrs) {
+        Builder builder = new Builder();
+        long[] address = new long[2];
+        for (String cidr : cidrs) {
+            String block = cidr.trim();
+            if (block.isEmpty()) {
+                continue;
+            }
+            int slash = block.indexOf('/');
+            int end = slash < 0 ? block.length() : slash;
+            int kind = IpLiteralUtil.parse(block, 0, end, address);
+            if (kind == IpLiteralUtil.INVALID) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+            }
+            // Only a dotted literal is an IPv4 block; ::ffff:a.b.c.d/n is written in IPv6 prefix terms
+            boolean ipv4 = block.lastIndexOf(':', end) < 0;
+            int maxLength = ipv4 ? 32 : 128;
+            int prefixLength = maxLength;
+            if (slash >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(block.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr, e);
+                }
+                if (prefixLength < 0 || prefixLength > maxLength) {
+                    throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr);
+                }
+            }
+            builder.add(address[0], address[1], ipv4 ? IPV4_MAPPED_PREFIX_LENGTH + prefixLength : prefixLength);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Checks whether the 128-bit address (IPv4 as IPv4-mapped) falls inside any block.
+     */
+    public boolean contains(long high, long low) {
+        int node = 0;
+        for (int bit = 0; bit < 128; bit++) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = bit(high, low, bit) == 0 ? zero[node] : one[node];
+            if (node == 0) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static int bit(long high, long low, int index) {
+        return index < 64
+                ? (int) (high >>> (63 - index)) & 1
+                : (int) (low >>> (127 - index)) & 1;
+    }
+
+    private static final class Builder {
+        private int[] zero = new int[64];
+        private int[] one = new int[64];
+        private boolean[] terminal = new boolean[64];
+        private int nodes = 1;
+        private int blocks;
+
+        void add(long high, long low, int prefixLength) {
+            int node = 0;
+            for (int bit = 0; bit < prefixLength; bit++) {
+                boolean isZero = bit(high, low, bit) == 0;
+                int child = isZero ? zero[node] : one[node];
+                if (child == 0) {
+                    // Allocate first: newNode() may replace the arrays
+                    child = newNode();
+                    if (isZero) {
+                        zero[node] = child;
+                    } else {
+                        one[node] = child;
+                    }
+                }
+                node = child;
+            }
+            terminal[node] = true;
+            blocks++;
+        }
+
+        private int newNode() {
+            if (nodes == terminal.length) {
+                int capacity = nodes * 2;
+                zero = Arrays.copyOf(zero, capacity);
+                one = Arrays.copyOf(one, capacity);
+                terminal = Arrays.copyOf(terminal, capacity);
+            }
+            return nodes++;
+        }
+
+        CidrSet build() {
+            return new CidrSet(Arrays.copyOf(zero, nodes), Arrays.copyOf(one, nodes),
+                    Arrays.copyOf(terminal, nodes), blocks);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.multicloud.gateway.util;
+
+import static com.multicloud.commonlib.constants.DeviceConstants.*;
+
+/**
+ * Client address as forwarded downstream in the {@code X-User-IP} and {@code X-User-IP-V6} headers.
+ * Exactly one of the two holds an address; the other is {@code N/A}.
+ */
+public record ClientIpAddresses(String ipV4, String ipV6) {
+    // Shared results for requests without a usable address
+    public static final ClientIpAddresses UNKNOWN = new ClientIpAddresses(UNKNOWN_IP, UNKNOWN_IP);
+    public static final ClientIpAddresses INVALID = new ClientIpAddresses(INVALID_IP, INVALID_IP);
+
+    public static ClientIpAddresses ofIpV4(String ipV4) {
+        return new ClientIpAddresses(ipV4, NOT_APPLICABLE);
+    }
+
+    public static ClientIpAddresses ofIpV6(String ipV6) {
+        return new ClientIpAddresses(NOT_APPLICABLE, ipV6);
+    }
+
+    // Whichever of the two is set, e.g. as a rate limiter key
+    public String address() {
+        return NOT_APPLICABLE.equals(ipV4) ? ipV6 : ipV4;
+    }
+}
@@ -0,0 +1,75 @@
+package com.multicloud.gateway.util;
+
+import com.multicloud.commonlib.security.IdentityAssertion;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.lang.NonNull;
+
+import static com.multicloud.commonlib.constants.DeviceConstants.*;
+
+public class IdentityHeadersUtil {
+    private IdentityHeadersUtil() {
+        // Utility class, prevent instantiation
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    // Every identity header we send downstream shares this prefix
+    private static final String IDENTITY_HEADER_PREFIX = "X-User-";
+
+    /**
+     * Builds the downstream request with the identity headers set once; every later {@code getHeaders()} call
+     * returns the same read-only copy. Any client-supplied header with the {@code X-User-} prefix is dropped,
+     * so services behind the gateway only ever see values we wrote.
+     *
+     * @param claims verified token claims, or {@code null} for an unauthenticated request
+     */
+    public static ServerHttpRequest withIdentityHeaders(ServerHttpRequest request, JWTClaimsSet claims,
+                                                        ClientIpAddresses clientIp) {
+        return withIdentityHeaders(request, claims, clientIp, null);
+    }
+
+    /**
+     * As {@link #withIdentityHeaders(ServerHttpRequest, JWTClaimsSet, ClientIpAddresses)}, and when {@code assertion}
+     * is enabled also signs the user headers together with the request method, path and id. {@code X-Request-Id} is
+     * always set to the gateway's own request id, so a client cannot reuse an assertion by repeating an id.
+     */
+    public static ServerHttpRequest withIdentityHeaders(ServerHttpRequest request, JWTClaimsSet claims,
+                                                        ClientIpAddresses clientIp, IdentityAssertion assertion) {
+        HttpHeaders original = request.getHeaders();
+        HttpHeaders headers = new HttpHeaders();
+        original.forEach((name, values) -> {
+            if (!name.regionMatches(true, 0, IDENTITY_HEADER_PREFIX, 0, IDENTITY_HEADER_PREFIX.length())) {
+                headers.put(name, values);
+            }
+        });
+        if (claims != null) {
+            setIfPresent(headers, X_USER_NAME, claims.getSubject());
+            setIfPresent(headers, X_USER_EMAIL, claims.getClaim("emailId"));
+            setIfPresent(headers, X_USER_ID, claims.getClaim("userId"));
+            if (assertion != null && assertion.isEnabled()) {
+                String requestId = request.getId();
+                headers.set(X_REQUEST_ID, requestId);
+                headers.set(X_USER_ASSERTION, assertion.sign(headers.getFirst(X_USER_NAME),
+                        headers.getFirst(X_USER_EMAIL), headers.getFirst(X_USER_ID), requestId,
+                        request.getMethod().name(), request.getPath().value()));
+            }
+        }
+        headers.set(HEADER_IPV4, clientIp.ipV4());
+        headers.set(HEADER_IPV6, clientIp.ipV6());
+        HttpHeaders readOnlyHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            public @NonNull HttpHeaders getHeaders() {
+                return readOnlyHeaders;
+            }
+        };
+    }
+
+    private static void setIfPresent(HttpHeaders headers, String name, Object value) {
+        if (value != null) {
+            headers.set(name, value.toString());
+        }
+    }
+}
@@ -1,13 +1,7 @@
 package com.multicloud.gateway.util;
 
-import org.springframework.http.server.reactive.ServerHttpRequest;
-
+import java.net.Inet4Address;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.regex.Pattern;
-
-import static com.multicloud.commonlib.constants.DeviceConstants.*;
-import static com.multicloud.commonlib.constants.gateway.Constants.IP_HEADER_CANDIDATES;
 
 public class IpAddressUtil {
     private IpAddressUtil() {
@@ -15,71 +9,133 @@ public class IpAddressUtil {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
 
-    private static final Pattern FORWARDED_HEADER_PATTERN =
-            Pattern.compile("for=([^;,\\s]+)", Pattern.CASE_INSENSITIVE);
-
-    public static String[] resolveClientIps(ServerHttpRequest request) {
-        String clientIp = null;
+    private static final String FORWARDED_FOR = "for=";
 
-        // Check headers first
-        for (String header : IP_HEADER_CANDIDATES) {
-            String headerValue = request.getHeaders().getFirst(header);
-            if (headerValue != null && !headerValue.isBlank()) {
-                if (header.equalsIgnoreCase("Forwarded")) {
-                    // Special handling for Forwarded header (RFC 7239)
-                    var matcher = FORWARDED_HEADER_PATTERN.matcher(headerValue);
-                    if (matcher.find()) {
-                        clientIp = matcher.group(1).trim();
-                    }
-                } else {
-                    clientIp = headerValue.split(",")[0].trim();
-                }
+    /**
+     * Parses one forwarded hop such as {@code 192.0.2.1}, {@code 192.0.2.1:8080}, {@code "[2001:db8::1]:443"}.
+     * Surrounding whitespace, quotes, brackets and ports are ignored; host names are never resolved.
+     *
+     * @param out receives the 128-bit address, see {@link IpLiteralUtil#parse}
+     * @return the {@link IpLiteralUtil} address kind, {@link IpLiteralUtil#INVALID} for anything else
+     */
+    public static int parseHop(CharSequence value, int from, int to, long[] out) {
+        // Trim whitespace and optional quotes
+        while (from < to && Character.isWhitespace(value.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(value.charAt(to - 1))) {
+            to--;
+        }
+        if (to - from >= 2 && value.charAt(from) == '"' && value.charAt(to - 1) == '"') {
+            from++;
+            to--;
+        }
+        if (from == to) {
+            return IpLiteralUtil.INVALID;
+        }
 
-                if (clientIp != null && !clientIp.isEmpty()) {
-                    break;
-                }
+        if (value.charAt(from) == '[') {
+            // Bracketed IPv6, optionally followed by a port: [2001:db8::1]:443
+            int close = indexOf(value, ']', from, to);
+            if (close < 0) {
+                return IpLiteralUtil.INVALID;
+            }
+            from++;
+            to = close;
+        } else {
+            // IPv4 with a port: 192.0.2.1:8080 (a bare IPv6 literal always has more than one colon)
+            int colon = indexOf(value, ':', from, to);
+            if (colon > 0 && indexOf(value, ':', colon + 1, to) < 0) {
+                to = colon;
             }
         }
+        return IpLiteralUtil.parse(value, from, to, out);
+    }
 
-        // Fall back to a remote address
-        if ((clientIp == null || clientIp.isEmpty())
-                && request.getRemoteAddress() != null
-                && request.getRemoteAddress().getAddress() != null) {
-            clientIp = request.getRemoteAddress().getAddress().getHostAddress();
+    /**
+     * Parses the {@code for=} parameter of one RFC 7239 {@code Forwarded} element,
+     * e.g. {@code for=192.0.2.60;proto=http;by=203.0.113.43}.
+     *
+     * @return the address kind, {@link IpLiteralUtil#INVALID} when there is no usable {@code for=}
+     */
+    public static int parseForwardedFor(CharSequence value, int from, int to, long[] out) {
+        int paramStart = from;
+        while (paramStart < to) {
+            int paramEnd = indexOf(value, ';', paramStart, to);
+            if (paramEnd < 0) {
+                paramEnd = to;
+            }
+            int nameStart = paramStart;
+            while (nameStart < paramEnd && Character.isWhitespace(value.charAt(nameStart))) {
+                nameStart++;
+            }
+            if (regionMatchesIgnoreCase(value, nameStart, paramEnd)) {
+                return parseHop(value, nameStart + FORWARDED_FOR.length(), paramEnd, out);
+            }
+            paramStart = paramEnd + 1;
         }
+        return IpLiteralUtil.INVALID;
+    }
 
-        // Default values
-        String ipV4 = UNKNOWN_IP;
-        String ipV6 = UNKNOWN_IP;
+    /**
+     * Formats a parsed address as the value pair sent downstream.
+     */
+    public static ClientIpAddresses toClientIpAddresses(int kind, long[] address) {
+        return switch (kind) {
+            case IpLiteralUtil.IPV4 -> ClientIpAddresses.ofIpV4(IpLiteralUtil.format(kind, address));
+            case IpLiteralUtil.IPV6 -> ClientIpAddresses.ofIpV6(IpLiteralUtil.format(kind, address));
+            default -> ClientIpAddresses.INVALID;
+        };
+    }
 
-        if (clientIp != null && !clientIp.isEmpty()) {
-            try {
-                // Handle cases where the IP might be enclosed in brackets (e.g., [::1])
-                String cleanIp = clientIp.replaceAll("[\\[\\]]", "");
+    public static ClientIpAddresses fromInetAddress(InetAddress address) {
+        return address instanceof Inet4Address
+                ? ClientIpAddresses.ofIpV4(address.getHostAddress())
+                : ClientIpAddresses.ofIpV6(address.getHostAddress());
+    }
 
-                InetAddress inetAddress = InetAddress.getByName(cleanIp);
+    /**
+     * Writes an already resolved address into the 128-bit form used by {@link IpLiteralUtil}.
+     *
+     * @return the address kind
+     */
+    public static int toBits(InetAddress address, long[] out) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            out[0] = 0;
+            out[1] = (0xffffL << 32) | (readInt(bytes, 0) & 0xffffffffL);
+            return IpLiteralUtil.IPV4;
+        }
+        out[0] = ((long) readInt(bytes, 0) << 32) | (readInt(bytes, 4) & 0xffffffffL);
+        out[1] = ((long) readInt(bytes, 8) << 32) | (readInt(bytes, 12) & 0xffffffffL);
+        return IpLiteralUtil.IPV6;
+    }
 
-                if (inetAddress.getHostAddress().contains(":")) {
-                    // IPv6 address
-                    if (inetAddress.getHostAddress().startsWith("::ffff:")) {
-                        // IPv4-mapped IPv6
-                        ipV4 = inetAddress.getHostAddress().substring(7);
-                        ipV6 = NOT_APPLICABLE;
-                    } else {
-                        // Pure IPv6
-                        ipV6 = inetAddress.getHostAddress();
-                        ipV4 = NOT_APPLICABLE;
-                    }
-                } else {
-                    // IPv4 address
-                    ipV4 = inetAddress.getHostAddress();
-                    ipV6 = NOT_APPLICABLE;
-                }
-            } catch (UnknownHostException e) {
-                ipV4 = ipV6 = INVALID_IP;
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24
+                | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence value, int from, int to) {
+        if (to - from < FORWARDED_FOR.length()) {
+            return false;
+        }
+        for (int i = 0; i < FORWARDED_FOR.length(); i++) {
+            if (Character.toLowerCase(value.charAt(from + i)) != FORWARDED_FOR.charAt(i)) {
+                return false;
             }
         }
+        return true;
+    }
 
-        return new String[]{ipV4, ipV6};
+    static int indexOf(CharSequence value, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.multicloud.gateway.util;
+
+/**
+ * Parser for textual IPv4 and IPv6 literals that never resolves host names.
+ * Addresses are decoded into a 128-bit value (IPv4 as IPv4-mapped IPv6), so callers can compare
+ * or prefix-match them without going through {@link java.net.InetAddress}.
+ */
+public class IpLiteralUtil {
+    private IpLiteralUtil() {
+        // Utility class, prevent instantiation
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static final int INVALID = 0;
+    public static final int IPV4 = 4;
+    public static final int IPV6 = 6;
+
+    private static final long IPV4_MAPPED_PREFIX = 0xffffL << 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Parses {@code text[from, to)} as an IP literal.
+     *
+     * @param out receives the address: {@code out[0]} holds the high and {@code out[1]} the low 64 bits
+     * @return {@link #IPV4} (including IPv4-mapped IPv6), {@link #IPV6} or {@link #INVALID}
+     */
+    public static int parse(CharSequence text, int from, int to, long[] out) {
+        if (from >= to) {
+            return INVALID;
+        }
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ':') {
+                return parseIpv6(text, from, to, out);
+            }
+        }
+        long ipv4 = parseIpv4(text, from, to);
+        if (ipv4 < 0) {
+            return INVALID;
+        }
+        out[0] = 0;
+        out[1] = IPV4_MAPPED_PREFIX | ipv4;
+        return IPV4;
+    }
+
+    /**
+     * Formats an address returned by {@link #parse} the way {@link java.net.InetAddress#getHostAddress()} does:
+     * dotted decimal for IPv4 and IPv4-mapped IPv6, eight uncompressed lower-case groups for IPv6.
+     *
+     * @return the formatted address, or {@code null} for {@link #INVALID}
+     */
+    public static String format(int kind, long[] address) {
+        return switch (kind) {
+            case IPV4 -> formatIpv4(address[1]);
+            case IPV6 -> formatIpv6(address[0], address[1]);
+            default -> null;
+        };
+    }
+
+    private static long parseIpv4(CharSequence text, int from, int to) {
+        long value = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to) {
+            int start = i;
+            int octet = 0;
+            while (i < to && i - start < 3) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                octet = octet * 10 + (c - '0');
+                i++;
+            }
+            int digits = i - start;
+            // Leading zeros are rejected: some stacks read them as octal, so the address would be ambiguous
+            if (digits == 0 || octet > 255 || (digits > 1 && text.charAt(start) == '0')) {
+                return -1;
+            }
+            value = (value << 8) | octet;
+            octets++;
+            if (i < to) {
+                if (text.charAt(i) != '.' || octets == 4) {
+                    return -1;
+                }
+                i++;
+                if (i == to) {
+                    return -1;
+                }
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    private static int parseIpv6(CharSequence text, int from, int to, long[] out) {
+        // Groups before "::" are placed from the left, groups after it are accumulated right-aligned
+        long high = 0;
+        long low = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int head = 0;
+        int tail = 0;
+        boolean gap = false;
+
+        int i = from;
+        if (text.charAt(i) == ':') {
+            if (to - i < 2 || text.charAt(i + 1) != ':') {
+                return INVALID;
+            }
+            gap = true;
+            i += 2;
+        }
+
+        while (i < to) {
+            int end = i;
+            boolean dotted = false;
+            while (end < to && text.charAt(end) != ':') {
+                dotted |= text.charAt(end) == '.';
+                end++;
+            }
+
+            int groups;
+            long value;
+            if (dotted) {
+                // Embedded IPv4 (e.g. ::ffff:192.0.2.1) must be the last part and fills two groups
+                if (end != to) {
+                    return INVALID;
+                }
+                value = parseIpv4(text, i, end);
+                groups = 2;
+            } else {
+                value = parseHexGroup(text, i, end);
+                groups = 1;
+            }
+            if (value < 0) {
+                return INVALID;
+            }
+
+            if (gap) {
+                tail += groups;
+                if (tail > 7) {
+                    return INVALID;
+                }
+                int shift = groups * 16;
+                tailHigh = (tailHigh << shift) | (tailLow >>> (64 - shift));
+                tailLow = (tailLow << shift) | value;
+            } else {
+                for (int g = groups - 1; g >= 0; g--) {
+                    if (head == 8) {
+                        return INVALID;
+                    }
+                    long group = (value >>> (g * 16)) & 0xffff;
+                    if (head < 4) {
+                        high |= group << ((3 - head) * 16);
+                    } else {
+                        low |= group << ((7 - head) * 16);
+                    }
+                    head++;
+                }
+            }
+
+            i = end;
+            if (i < to) {
+                i++;
+                if (i == to) {
+                    return INVALID;
+                }
+                if (text.charAt(i) == ':') {
+                    if (gap) {
+                        return INVALID;
+                    }
+                    gap = true;
+                    i++;
+                }
+            }
+        }
+
+        if (gap ? head + tail > 7 : head != 8) {
+            return INVALID;
+        }
+        out[0] = high | tailHigh;
+        out[1] = low | tailLow;
+        return out[0] == 0 && (out[1] >>> 32) == 0xffff ? IPV4 : IPV6;
+    }
+
+    private static long parseHexGroup(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length == 0 || length > 4) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static String formatIpv4(long address) {
+        StringBuilder builder = new StringBuilder(15);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            builder.append((address >>> shift) & 0xff);
+            if (shift > 0) {
+                builder.append('.');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String formatIpv6(long high, long low) {
+        StringBuilder builder = new StringBuilder(39);
+        for (int group = 0; group < 8; group++) {
+            long half = group < 4 ? high : low;
+            int value = (int) ((half >>> ((3 - (group & 3)) * 16)) & 0xffff);
+            if (group > 0) {
+                builder.append(':');
+            }
+            // Same shape as Inet6Address.getHostAddress(): no leading zeros and no "::" compression
+            boolean started = false;
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                int nibble = (value >>> shift) & 0xf;
+                if (started || nibble != 0 || shift == 0) {
+                    builder.append(HEX_DIGITS[nibble]);
+                    started = true;
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
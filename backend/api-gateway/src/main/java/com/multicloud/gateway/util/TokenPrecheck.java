@@ -0,0 +1,84 @@
+package com.multicloud.gateway.util;
+
+import com.multicloud.commonlib.security.JweDecryptor;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.util.Base64URL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.ParseException;
+import java.util.Set;
+
+/**
+ * Structural checks that reject junk cookies before any hashing or crypto: compact JWE form with five base64url
+ * segments, a bounded length, segment sizes of A256GCM, and an {@code alg}/{@code enc} pair that we accept.
+ * Passing says nothing about authenticity; the token still has to be decrypted.
+ */
+@Component
+public class TokenPrecheck {
+    private static final int MAXIMUM_HEADER_LENGTH = 1024;
+    // Every profile encrypts with A256GCM: a 96-bit IV and a 128-bit tag, base64url without padding
+    private static final int IV_LENGTH = 16;
+    private static final int TAG_LENGTH = 22;
+
+    private final Set<JweTokenProfile> acceptedProfiles;
+    private final int maximumLength;
+
+    public TokenPrecheck(JweDecryptor jweDecryptor,
+                         @Value("${security.jwt.maximum-token-length:4096}") int maximumLength) {
+        this.acceptedProfiles = jweDecryptor.getAcceptedProfiles();
+        this.maximumLength = maximumLength;
+    }
+
+    public boolean isPlausible(String token) {
+        int length = token.length();
+        if (length == 0 || length > maximumLength) {
+            return false;
+        }
+        int[] dots = new int[4];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (count == dots.length) {
+                    return false;
+                }
+                dots[count++] = i;
+            } else if (!isBase64Url(c)) {
+                return false;
+            }
+        }
+        if (count != dots.length) {
+            return false;
+        }
+        int headerLength = dots[0];
+        int encryptedKeyLength = dots[1] - dots[0] - 1;
+        int ivLength = dots[2] - dots[1] - 1;
+        int ciphertextLength = dots[3] - dots[2] - 1;
+        int tagLength = length - dots[3] - 1;
+        if (headerLength == 0 || headerLength > MAXIMUM_HEADER_LENGTH
+                || ivLength != IV_LENGTH || tagLength != TAG_LENGTH || ciphertextLength == 0) {
+            return false;
+        }
+        JweTokenProfile profile = profileOf(token.substring(0, headerLength));
+        if (profile == null || !acceptedProfiles.contains(profile)) {
+            return false;
+        }
+        // Direct encryption has no wrapped key, RSA-OAEP always has one
+        return profile == JweTokenProfile.DIR_A256GCM ? encryptedKeyLength == 0 : encryptedKeyLength > 0;
+    }
+
+    private static JweTokenProfile profileOf(String encodedHeader) {
+        try {
+            JWEHeader header = JWEHeader.parse(new Base64URL(encodedHeader));
+            return JweTokenProfile.fromHeader(header.getAlgorithm().getName(), header.getEncryptionMethod().getName());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+}
@@ -0,0 +1,37 @@
+-- Token bucket that hands out a lease of up to ARGV[4] tokens in one call, so a gateway node can serve
+-- the following requests for the same key from its local budget.
+-- Returns { granted tokens (0 when denied), tokens left in the bucket }.
+redis.replicate_commands()
+
+local tokens_key = KEYS[1]
+local timestamp_key = KEYS[2]
+
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+local lease = tonumber(ARGV[4])
+
+-- Server time keeps every gateway node on the same clock
+local time = redis.call('TIME')
+local now = tonumber(time[1]) + tonumber(time[2]) / 1000000
+
+local fill_time = capacity / rate
+local ttl = math.max(1, math.ceil(fill_time * 2))
+
+local last_tokens = tonumber(redis.call('get', tokens_key)) or capacity
+local last_refreshed = tonumber(redis.call('get', timestamp_key)) or 0
+
+local delta = math.max(0, now - last_refreshed)
+local filled_tokens = math.min(capacity, last_tokens + (delta * rate))
+
+local granted = 0
+if filled_tokens >= requested then
+  -- Whole requests only, never more than the lease size
+  granted = math.min(lease, math.floor(filled_tokens / requested) * requested)
+end
+local new_tokens = filled_tokens - granted
+
+redis.call('setex', tokens_key, ttl, new_tokens)
+redis.call('setex', timestamp_key, ttl, now)
+
+return { granted, math.floor(new_tokens) }
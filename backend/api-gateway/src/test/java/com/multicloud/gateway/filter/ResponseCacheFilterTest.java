@@ -0,0 +1,216 @@
+package com.multicloud.gateway.filter;
+
+import com.multicloud.gateway.cache.CachePolicies;
+import com.multicloud.gateway.cache.ResponseCache;
+import com.multicloud.gateway.config.CachePolicyProperties;
+import com.multicloud.gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private static final String PATH = "/vm/aws/regions";
+
+    private static RedisServer redisServer;
+    private static int redisPort;
+
+    private LettuceConnectionFactory connectionFactory;
+    private ResponseCache responseCache;
+    private ResponseCacheFilter filter;
+    private final AtomicInteger downstreamCalls = new AtomicInteger();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisPort = freePort();
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redisPort));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        ReactiveStringRedisTemplate redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+
+        ResponseCacheProperties properties = new ResponseCacheProperties(true, DataSize.ofKilobytes(1),
+                Duration.ofSeconds(1), List.of(new ResponseCacheProperties.Rule(PATH, Duration.ofMinutes(1))));
+        CachePolicyProperties.Policy defaults = new CachePolicyProperties.Policy(1000L, null,
+                Duration.ofSeconds(10), null, CachePolicyProperties.KeyStrength.STRONG, true);
+        CachePolicyProperties.Policy entries = new CachePolicyProperties.Policy(null, DataSize.ofMegabytes(1),
+                Duration.ofSeconds(10), null, CachePolicyProperties.KeyStrength.STRONG, true);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CachePolicies cachePolicies = new CachePolicies(
+                new CachePolicyProperties(defaults, Map.of("response-cache", entries)), meterRegistry);
+        responseCache = new ResponseCache(redisTemplate, properties, cachePolicies, meterRegistry);
+        filter = new ResponseCacheFilter(responseCache, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        responseCache.destroy();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void servesTheSecondReadFromTheCache() {
+        MockServerHttpResponse miss = get("1", downstream("[\"eu-west-1\",", "\"us-east-1\"]"));
+        MockServerHttpResponse hit = get("1", downstream("unused"));
+
+        assertThat(miss.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(hit.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(hit.getBodyAsString().block()).isEqualTo("[\"eu-west-1\",\"us-east-1\"]");
+        assertThat(hit.getHeaders().getETag()).isEqualTo(miss.getHeaders().getETag());
+        assertThat(downstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void keysEntriesPerUserAndQuery() {
+        get("1", downstream("user 1"));
+
+        MockServerHttpResponse otherUser = get("2", downstream("user 2"));
+        MockServerHttpResponse otherQuery = exchange("1", MockServerHttpRequest.get(PATH + "?page=2"), downstream("page 2"));
+
+        assertThat(otherUser.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(otherUser.getBodyAsString().block()).isEqualTo("user 2");
+        assertThat(otherQuery.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(downstreamCalls).hasValue(3);
+    }
+
+    @Test
+    void dropsTheUsersEntriesAfterAWrite() {
+        get("1", downstream("before"));
+        get("2", downstream("other user"));
+
+        exchange("1", MockServerHttpRequest.post("/vm/aws/instances"), downstream("created"));
+        MockServerHttpResponse afterWrite = get("1", downstream("after"));
+        MockServerHttpResponse otherUser = get("2", downstream("unused"));
+
+        assertThat(afterWrite.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(afterWrite.getBodyAsString().block()).isEqualTo("after");
+        assertThat(otherUser.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+    }
+
+    @Test
+    void dropsTheUsersEntriesBeforeTheWriteResponseIsSent() {
+        get("1", downstream("before"));
+        AtomicReference<ResponseCache.Lookup> seenByClient = new AtomicReference<>();
+        MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.post("/vm/aws/addaccount"));
+        write.getAttributes().put(AuthenticationFilter.USER_ID_ATTRIBUTE, "1");
+        // Reads the cache the moment the write's response goes out, before the filter chain has completed
+        write.getResponse().setWriteHandler(body -> Flux.from(body)
+                .doOnNext(DataBufferUtils::release)
+                .then(Mono.defer(() -> responseCache.lookup("1", PATH)).doOnNext(seenByClient::set))
+                .then());
+
+        filter.filter(write, downstream("created")).block(Duration.ofSeconds(5));
+
+        assertThat(seenByClient.get()).isNotNull();
+        assertThat(seenByClient.get().response()).isNull();
+    }
+
+    @Test
+    void streamsBodiesOverTheLimitWithoutCachingThem() {
+        String chunk = "x".repeat(600);
+
+        MockServerHttpResponse first = get("1", downstream(chunk, chunk, chunk));
+        MockServerHttpResponse second = get("1", downstream(chunk, chunk, chunk));
+
+        assertThat(first.getBodyAsString().block()).hasSize(1800);
+        assertThat(first.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isNull();
+        assertThat(second.getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isNull();
+        assertThat(downstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void passesAnOversizedBodyThroughBeforeItEnds() {
+        String chunk = "x".repeat(600);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        exchange.getAttributes().put(AuthenticationFilter.USER_ID_ATTRIBUTE, "1");
+        AtomicInteger written = new AtomicInteger();
+        // Completes once the client has seen more than the limit, while the backend is still sending
+        exchange.getResponse().setWriteHandler(body -> Flux.from(body)
+                .map(buffer -> written.addAndGet(buffer.readableByteCount()))
+                .takeUntil(total -> total > 1024)
+                .then());
+        GatewayFilterChain endless = downstreamExchange -> {
+            downstreamExchange.getResponse().setStatusCode(HttpStatus.OK);
+            return downstreamExchange.getResponse().writeWith(
+                    Flux.concat(Flux.just(chunk, chunk).map(ResponseCacheFilterTest::buffer), Flux.never()));
+        };
+
+        filter.filter(exchange, endless).block(Duration.ofSeconds(5));
+
+        assertThat(written).hasValue(1200);
+    }
+
+    private MockServerHttpResponse get(String userId, GatewayFilterChain chain) {
+        return exchange(userId, MockServerHttpRequest.method(HttpMethod.GET, PATH), chain);
+    }
+
+    private MockServerHttpResponse exchange(String userId, MockServerHttpRequest.BaseBuilder<?> request,
+                                            GatewayFilterChain chain) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(AuthenticationFilter.USER_ID_ATTRIBUTE, userId);
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange.getResponse();
+    }
+
+    // Writes the body in the given chunks without a Content-Length, like a streamed backend response
+    private GatewayFilterChain downstream(String... chunks) {
+        return exchange -> {
+            downstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Flux.fromArray(chunks).map(ResponseCacheFilterTest::buffer));
+        };
+    }
+
+    private static DataBuffer buffer(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.multicloud.gateway.ratelimit;
+
+import com.multicloud.gateway.cache.CachePolicies;
+import com.multicloud.gateway.config.CachePolicyProperties;
+import com.multicloud.gateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCacheRateLimiterTest {
+
+    private static RedisServer redisServer;
+    private static int redisPort;
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisPort = freePort();
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = template(redisPort);
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    @Test
+    void servesFollowingRequestsFromTheLocalLease() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        NearCacheRateLimiter limiter = limiter(redisTemplate, properties(50, 100, 5, Map.of()), registry);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(isAllowed(limiter, "route", "user:1")).isTrue();
+        }
+
+        assertThat(count(registry, "redis_allowed")).isEqualTo(1);
+        assertThat(count(registry, "local_allowed")).isEqualTo(4);
+    }
+
+    @Test
+    void nodesShareTheBucketThroughRedis() {
+        RateLimitProperties properties = properties(1, 10, 3, Map.of());
+        NearCacheRateLimiter nodeA = limiter(redisTemplate, properties, new SimpleMeterRegistry());
+        NearCacheRateLimiter nodeB = limiter(template(redisPort), properties, new SimpleMeterRegistry());
+
+        int allowed = 0;
+        for (int i = 0; i < 30; i++) {
+            NearCacheRateLimiter node = i % 2 == 0 ? nodeA : nodeB;
+            if (isAllowed(node, "route", "ip:203.0.113.24")) {
+                allowed++;
+            }
+        }
+
+        // Burst of 10, plus at most one token refilled while the test runs
+        assertThat(allowed).isBetween(10, 11);
+    }
+
+    @Test
+    void remembersADenialWithoutAskingRedisAgain() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        NearCacheRateLimiter limiter = limiter(redisTemplate, properties(1, 1, 1, Map.of()), registry);
+
+        assertThat(isAllowed(limiter, "route", "user:2")).isTrue();
+        assertThat(isAllowed(limiter, "route", "user:2")).isFalse();
+        assertThat(isAllowed(limiter, "route", "user:2")).isFalse();
+
+        assertThat(count(registry, "redis_denied")).isEqualTo(1);
+        assertThat(count(registry, "local_denied")).isEqualTo(1);
+    }
+
+    @Test
+    void appliesPerRouteQuotas() {
+        RateLimitProperties properties = properties(50, 100, 1,
+                Map.of("strict", new RateLimitProperties.Quota(1, 1, null, null)));
+        NearCacheRateLimiter limiter = limiter(redisTemplate, properties, new SimpleMeterRegistry());
+
+        assertThat(isAllowed(limiter, "strict", "user:3")).isTrue();
+        assertThat(isAllowed(limiter, "strict", "user:3")).isFalse();
+        assertThat(isAllowed(limiter, "relaxed", "user:3")).isTrue();
+        assertThat(isAllowed(limiter, "relaxed", "user:3")).isTrue();
+    }
+
+    @Test
+    void failsOpenWhenRedisIsUnavailable() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        NearCacheRateLimiter limiter = limiter(template(freePort()), properties(1, 1, 1, Map.of()), registry);
+
+        RateLimiter.Response response = limiter.isAllowed("route", "user:4").block(Duration.ofSeconds(5));
+
+        assertThat(response).isNotNull();
+        assertThat(response.isAllowed()).isTrue();
+        assertThat(response.getHeaders()).containsEntry(NearCacheRateLimiter.REMAINING_HEADER, "-1");
+        assertThat(count(registry, "fail_open")).isEqualTo(1);
+    }
+
+    private static boolean isAllowed(NearCacheRateLimiter limiter, String routeId, String id) {
+        RateLimiter.Response response = limiter.isAllowed(routeId, id).block(Duration.ofSeconds(5));
+        assertThat(response).isNotNull();
+        return response.isAllowed();
+    }
+
+    private static NearCacheRateLimiter limiter(ReactiveStringRedisTemplate template, RateLimitProperties properties,
+                                                MeterRegistry registry) {
+        // Route filter args are not used here, so no ConfigurationService is needed
+        CachePolicyProperties.Policy bucketPolicy = new CachePolicyProperties.Policy(1000L, null, null,
+                properties.leaseTtl(), CachePolicyProperties.KeyStrength.STRONG, true);
+        CachePolicies cachePolicies = new CachePolicies(new CachePolicyProperties(bucketPolicy, Map.of()), registry);
+        return new NearCacheRateLimiter(template, properties, cachePolicies, null, registry);
+    }
+
+    private static RateLimitProperties properties(int replenishRate, int burstCapacity, int leaseTokens,
+                                                  Map<String, RateLimitProperties.Quota> routes) {
+        return new RateLimitProperties(replenishRate, burstCapacity, 1, leaseTokens,
+                Duration.ofSeconds(1), Duration.ofMillis(500), routes);
+    }
+
+    private static double count(MeterRegistry registry, String outcome) {
+        return registry.get("gateway.rate_limiter.decisions").tag("outcome", outcome).counter().count();
+    }
+
+    private ReactiveStringRedisTemplate template(int port) {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        connectionFactories.add(connectionFactory);
+        return new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.multicloud.auth.component;
 
 import com.multicloud.auth.config.AuthProperties;
+import com.multicloud.commonlib.events.SessionRevokedEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @EnableConfigurationProperties(AuthProperties.class)
+@RemoteApplicationEventScan(basePackageClasses = SessionRevokedEvent.class)
 public class AppConfig {
 }
@@ -0,0 +1,57 @@
+package com.multicloud.auth.component;
+
+import com.multicloud.commonlib.events.SessionRevokedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+@Component
+public class SessionRevocationProducer {
+    private static final Logger logger = LoggerFactory.getLogger(SessionRevocationProducer.class);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+
+    public SessionRevocationProducer(ApplicationEventPublisher eventPublisher, BusProperties busProperties,
+                                     Destination.Factory destinationFactory) {
+        this.eventPublisher = eventPublisher;
+        this.busProperties = busProperties;
+        this.destinationFactory = destinationFactory;
+    }
+
+    /**
+     * Announces revoked sessions on the bus so the gateway stops accepting their access tokens.
+     * Inside a transaction the event is only sent once it has committed.
+     */
+    public void sendSessionsRevokedEvent(Long userId, List<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        // A null destination addresses every service on the bus
+        SessionRevokedEvent event = new SessionRevokedEvent(this, busProperties.getId(),
+                destinationFactory.getDestination(null), userId, sessionIds, System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(SessionRevokedEvent event) {
+        eventPublisher.publishEvent(event);
+        logger.info("Session revocation event sent for userId: {}, sessions: {}", event.getUserId(), event.getSessionIds());
+    }
+}
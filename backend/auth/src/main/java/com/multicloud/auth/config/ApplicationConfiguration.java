@@ -1,23 +1,19 @@
 package com.multicloud.auth.config;
 
-import com.multicloud.auth.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 
-import java.util.List;
-
 @Configuration
 public class ApplicationConfiguration {
-    private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
-    public ApplicationConfiguration(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public ApplicationConfiguration(UserDetailsCache userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Value("${spring.security.user.name}")
@@ -39,14 +35,7 @@ public class ApplicationConfiguration {
                         .build()
         );
 
-        UserDetailsService databaseUserDetailsService = username ->
-                userRepository.findByEmail(username)
-                        .or(() -> userRepository.findByUsername(username))
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        return new CompositeUserDetailsService(
-                List.of(inMemoryUserDetailsManager, databaseUserDetailsService)
-        );
+        return new CompositeUserDetailsService(userName, inMemoryUserDetailsManager, userDetailsCache);
     }
 
     @Bean
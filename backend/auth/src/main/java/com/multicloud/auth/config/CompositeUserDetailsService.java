@@ -4,25 +4,28 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import java.util.List;
-
+/**
+ * Resolves the configured in-memory admin by name and every other login through the {@link UserDetailsCache}.
+ */
 public class CompositeUserDetailsService implements UserDetailsService {
 
-    private final List<UserDetailsService> userDetailsServices;
+    private final String adminUsername;
+    private final UserDetailsService adminUserDetailsService;
+    private final UserDetailsCache userDetailsCache;
 
-    public CompositeUserDetailsService(List<UserDetailsService> userDetailsServices) {
-        this.userDetailsServices = userDetailsServices;
+    public CompositeUserDetailsService(String adminUsername, UserDetailsService adminUserDetailsService,
+                                       UserDetailsCache userDetailsCache) {
+        this.adminUsername = adminUsername;
+        this.adminUserDetailsService = adminUserDetailsService;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        for (UserDetailsService uds : userDetailsServices) {
-            try {
-                return uds.loadUserByUsername(username);
-            } catch (UsernameNotFoundException e) {
-                // Continue to next UserDetailsService
-            }
+        // InMemoryUserDetailsManager matches names case-insensitively
+        if (adminUsername.equalsIgnoreCase(username)) {
+            return adminUserDetailsService.loadUserByUsername(username);
         }
-        throw new UsernameNotFoundException("User not found: " + username);
+        return userDetailsCache.get(username);
     }
 }
@@ -0,0 +1,61 @@
+package com.multicloud.auth.config;
+
+import com.multicloud.commonlib.security.DirectJweKey;
+import com.multicloud.commonlib.security.IdentityAssertion;
+import com.multicloud.commonlib.security.JweDecryptor;
+import com.multicloud.commonlib.security.JweKeyRing;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StringUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+public class JweKeyConfig {
+
+    @Bean(destroyMethod = "close")
+    public JweKeyRing jweKeyRing(ResourceLoader resourceLoader,
+                                 @Value("${security.jwt.public-key-path}") String publicKeyPath,
+                                 @Value("${security.jwt.private-key-path}") String privateKeyPath,
+                                 @Value("${security.jwt.key-id:}") String keyId,
+                                 @Value("${security.jwt.previous-private-key-path:}") String previousPrivateKeyPath,
+                                 @Value("${security.jwt.key-reload-interval:60s}") Duration reloadInterval,
+                                 @Value("${security.jwt.key-retention:1h}") Duration retention) {
+        List<JweKeyRing.KeySource> sources = new ArrayList<>();
+        sources.add(new JweKeyRing.KeySource(keyId,
+                resourceLoader.getResource(publicKeyPath),
+                resourceLoader.getResource(privateKeyPath)));
+        // Decrypt-only key kept around while tokens issued before a rotation are still alive
+        if (StringUtils.hasText(previousPrivateKeyPath)) {
+            sources.add(new JweKeyRing.KeySource(null, null, resourceLoader.getResource(previousPrivateKeyPath)));
+        }
+        JweKeyRing keyRing = new JweKeyRing(sources, retention);
+        keyRing.startWatching(reloadInterval);
+        return keyRing;
+    }
+
+    /**
+     * Accepting several profiles at once lets a deployment switch the issued profile without logging users out.
+     */
+    @Bean
+    public JweDecryptor jweDecryptor(JweKeyRing jweKeyRing,
+                                     @Value("${security.jwt.accepted-profiles:RSA_OAEP_256}") Set<JweTokenProfile> acceptedProfiles,
+                                     @Value("${security.jwt.direct-key:}") String directKey) {
+        DirectJweKey directJweKey = StringUtils.hasText(directKey) ? DirectJweKey.fromBase64(directKey) : null;
+        return new JweDecryptor(jweKeyRing, acceptedProfiles, directJweKey);
+    }
+
+    // Verifies the gateway's signature over the identity headers; must hold the gateway's keys
+    @Bean
+    public IdentityAssertion identityAssertion(@Value("${security.identity-assertion.keys:}") String keys,
+                                               @Value("${security.identity-assertion.ttl:30s}") Duration ttl) {
+        return new IdentityAssertion(IdentityAssertion.parseKeys(keys), ttl, Clock.systemUTC());
+    }
+}
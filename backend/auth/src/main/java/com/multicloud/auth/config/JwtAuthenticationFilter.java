@@ -1,55 +1,76 @@
 package com.multicloud.auth.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.multicloud.auth.service.JweService;
+import com.multicloud.auth.service.VerifiedToken;
 import com.multicloud.commonlib.exceptions.JweDecryptionException;
+import com.multicloud.commonlib.security.IdentityAssertion;
+import com.multicloud.commonlib.security.PathClassifier;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.WebUtils;
 
 import java.io.IOException;
 import java.util.List;
 
+import static com.multicloud.commonlib.constants.AuthConstants.JWE_FILTER_EXCLUDED_PATHS;
+import static com.multicloud.commonlib.constants.DeviceConstants.*;
+
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    // The verified claims of the request, for handlers that need more than the principal name
+    public static final String VERIFIED_TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".verifiedToken";
     private final JweService jweService;
-    private final UserDetailsService userDetailsService;
+    private final IdentityAssertion identityAssertion;
+    private final Mode mode;
+    // Assertions already accepted, kept for as long as they verify so the same one is not accepted twice
+    private final Cache<String, Boolean> acceptedAssertions;
     private static final String JWT_COOKIE_NAME = "jweToken";
     private static final Logger jwtLogger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    private final PathMatcher pathMatcher = new AntPathMatcher();
 
-    private static final List<String> EXCLUDED_PATHS = List.of(
-            "/auth/login", "/auth/signup", "/auth/verify",
-            "/auth/resend", "/auth/forgot-password", "/auth/reset-password",
-            "/auth/refresh-token", "/auth/logout", "/auth/take-action",
-            "/auth/health", "/auth/actuator/health", "/auth/actuator/prometheus",
-            "/auth/v3/**", "/auth/swagger-ui/**", "/actuator/**", "/actuator/health"
-    );
+    private static final PathClassifier EXCLUDED_PATHS = PathClassifier.compile(JWE_FILTER_EXCLUDED_PATHS);
+
+    /**
+     * {@code JWE} always decrypts the access token cookie. {@code GATEWAY_ASSERTION} trusts identity headers that carry
+     * a valid gateway signature and only decrypts the cookie of requests without one.
+     */
+    public enum Mode {
+        JWE,
+        GATEWAY_ASSERTION
+    }
 
-    public JwtAuthenticationFilter(JweService jweService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JweService jweService,
+                                   IdentityAssertion identityAssertion,
+                                   @Value("${security.jwt.filter-mode:JWE}") Mode mode) {
+        if (mode == Mode.GATEWAY_ASSERTION && !identityAssertion.isEnabled()) {
+            throw new IllegalStateException("security.jwt.filter-mode=GATEWAY_ASSERTION needs security.identity-assertion.keys");
+        }
         this.jweService = jweService;
-        this.userDetailsService = userDetailsService;
+        this.identityAssertion = identityAssertion;
+        this.mode = mode;
+        this.acceptedAssertions = Caffeine.newBuilder()
+                .expireAfterWrite(identityAssertion.getTtl().multipliedBy(2))
+                .build();
+        jwtLogger.info("JWT authentication filter mode: {}", mode);
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
-        boolean isExcluded = EXCLUDED_PATHS.stream()
-                .anyMatch(pattern -> pathMatcher.match(pattern, path));
+        boolean isExcluded = EXCLUDED_PATHS.matches(path);
         jwtLogger.debug("Path: {}, Should Not Filter: {}", path, isExcluded);
         return isExcluded;
     }
@@ -57,7 +78,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
-                                    @NonNull FilterChain filterChain) throws IOException {
+                                    @NonNull FilterChain filterChain) throws IOException, ServletException {
+        if (mode == Mode.GATEWAY_ASSERTION) {
+            String assertion = request.getHeader(X_USER_ASSERTION);
+            // A forged or stale assertion is rejected outright; only a missing one falls back to the cookie
+            if (assertion != null) {
+                authenticateAssertion(request, response, filterChain, assertion);
+                return;
+            }
+        }
         Cookie jwtCookie = WebUtils.getCookie(request, JWT_COOKIE_NAME);
 
         if (jwtCookie == null) {
@@ -69,17 +98,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = jwtCookie.getValue();
         try {
-            String username = jweService.extractEmail(token);
-            Authentication existingAuth = SecurityContextHolder.getContext().getAuthentication();
-
-            if (username != null && existingAuth == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jweService.isTokenValid(token, userDetails)) {
-                    setAuthentication(request, userDetails);
-                } else {
-                    denyAccess(response, "Unauthorized: Invalid token");
-                    return;
-                }
+            // One decrypt per request; the principal is built from the claims without a user lookup
+            VerifiedToken verifiedToken = jweService.verify(token);
+            request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verifiedToken);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                setAuthentication(request, verifiedToken);
             }
 
             filterChain.doFilter(request, response);
@@ -92,12 +115,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    private void setAuthentication(HttpServletRequest request, UserDetails userDetails) {
+    private void authenticateAssertion(HttpServletRequest request, HttpServletResponse response,
+                                       FilterChain filterChain, String assertion) throws IOException, ServletException {
+        String userName = request.getHeader(X_USER_NAME);
+        String email = request.getHeader(X_USER_EMAIL);
+        String userId = request.getHeader(X_USER_ID);
+        if (userName == null
+                || !identityAssertion.verify(assertion, userName, email, userId, request.getHeader(X_REQUEST_ID),
+                        request.getMethod(), request.getRequestURI())
+                || acceptedAssertions.asMap().putIfAbsent(assertion, Boolean.TRUE) != null) {
+            denyAccess(response, "Unauthorized: Invalid identity assertion");
+            return;
+        }
+        VerifiedToken verifiedToken = new VerifiedToken(
+                userName, email, userId != null ? Long.valueOf(userId) : null, null, null);
+        request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verifiedToken);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            setAuthentication(request, verifiedToken);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void setAuthentication(HttpServletRequest request, VerifiedToken verifiedToken) {
+        // Users carry no authorities, see User#getAuthorities
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
+                verifiedToken, null, List.of());
         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
-        jwtLogger.info("User authenticated: {}", userDetails.getUsername());
+        jwtLogger.debug("User authenticated: {}", verifiedToken.subject());
     }
 
     private void denyAccess(HttpServletResponse response,String message) throws IOException {
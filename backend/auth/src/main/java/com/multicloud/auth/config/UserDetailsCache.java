@@ -0,0 +1,132 @@
+package com.multicloud.auth.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.multicloud.auth.entity.User;
+import com.multicloud.auth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolved database users for {@link CompositeUserDetailsService}, keyed by both email and username so either
+ * login form is a single lookup. Entries expire after {@code auth.user-cache.ttl}; services that change a user's
+ * password, lock state or verification call {@link #evict(User)}.
+ */
+@Component
+public class UserDetailsCache {
+    private static final String CACHE_NAME = "userDetails";
+
+    private final UserRepository userRepository;
+    private final Cache<String, CachedUserDetails> users;
+    // Bumped on every eviction, so a load that raced an eviction does not put the old row back
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserDetailsCache(UserRepository userRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${auth.user-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${auth.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
+
+    /**
+     * @param login the user's email or username
+     */
+    public UserDetails get(String login) throws UsernameNotFoundException {
+        CachedUserDetails cached = users.getIfPresent(login);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = evictions.get();
+        User user = userRepository.findByEmail(login)
+                .or(() -> userRepository.findByUsername(login))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + login));
+        CachedUserDetails loaded = CachedUserDetails.of(user);
+        if (evictions.get() == stamp) {
+            users.put(user.getEmail(), loaded);
+            users.put(user.getUsername(), loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the user's entries now and, inside a transaction, again once it commits, since a lookup in between
+     * still reads the old row.
+     */
+    public void evict(User user) {
+        List<String> keys = List.of(user.getEmail(), user.getUsername());
+        invalidate(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(keys);
+                }
+            });
+        }
+    }
+
+    private void invalidate(List<String> keys) {
+        evictions.incrementAndGet();
+        users.invalidateAll(keys);
+    }
+
+    /**
+     * Immutable copy of the fields {@code DaoAuthenticationProvider} checks. The entity itself is not cached: it is
+     * mutable and would be shared by every request that logs in as that user.
+     */
+    private record CachedUserDetails(String username, String password, boolean enabled, boolean accountNonLocked)
+            implements UserDetails {
+
+        static CachedUserDetails of(User user) {
+            return new CachedUserDetails(user.getUsername(), user.getPassword(), user.isEnabled(), user.isAccountNonLocked());
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public boolean isAccountNonLocked() {
+            return accountNonLocked;
+        }
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return List.of();
+        }
+
+        @Override
+        public String toString() {
+            return "CachedUserDetails[username=" + username + "]";
+        }
+    }
+}
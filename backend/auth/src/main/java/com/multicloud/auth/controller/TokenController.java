@@ -10,6 +10,7 @@ import com.multicloud.auth.repository.RefreshTokenRepository;
 import com.multicloud.auth.service.AuthenticationService;
 import com.multicloud.auth.service.ForgotPasswordService;
 import com.multicloud.auth.service.JweService;
+import com.multicloud.auth.service.VerifiedToken;
 import com.multicloud.auth.util.CookieUtil;
 import com.multicloud.auth.view.Views;
 import com.multicloud.commonlib.exceptions.InvalidRefreshTokenException;
@@ -80,7 +81,7 @@ public class TokenController {
             logger.debug("Received refresh token: {}", refreshToken);
             RefreshToken currentRefreshToken = authenticationService.getRefreshToken(refreshToken);
             User user = currentRefreshToken.getUser();
-            TokenResponse tokens = authenticationService.refreshTokens(user, refreshToken);
+            TokenResponse tokens = authenticationService.refreshTokens(currentRefreshToken);
             Duration remainingDuration = Duration.between(LocalDateTime.now(),
                     LocalDateTime.ofInstant(Instant.ofEpochMilli(tokens.refreshTokenExpiry()), ZoneId.systemDefault()));
             long maxAgeSeconds = remainingDuration.getSeconds();
@@ -126,15 +127,11 @@ public class TokenController {
         }
 
         try {
-            String username = jweService.extractUsername(token);
-            User user = authenticationService.loadUserByUsername(username);
-            if (jweService.isTokenValid(token, user)) {
-                logger.info("Token is Valid for User: {}", user.getUsername());
-                return ResponseEntity.ok(Collections.singletonMap("message", "Token is valid"));
-            } else {
-                logger.error("Invalid or expired token");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ErrorResponse("Invalid or expired token"));
-            }
+            // verify() already rejects expired tokens; the lookup still rejects tokens of deleted users
+            VerifiedToken verifiedToken = jweService.verify(token);
+            User user = authenticationService.loadUserByUsername(verifiedToken.subject());
+            logger.info("Token is Valid for User: {}", user.getUsername());
+            return ResponseEntity.ok(Collections.singletonMap("message", "Token is valid"));
         } catch (Exception e) {
             logger.error("Invalid or malformed token");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ErrorResponse("Invalid or malformed token"));
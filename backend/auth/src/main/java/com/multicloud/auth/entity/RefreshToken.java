@@ -1,5 +1,6 @@
 package com.multicloud.auth.entity;
 
+import com.multicloud.auth.util.RefreshTokenUtil;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
@@ -12,23 +13,27 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "refresh_tokens",
         indexes = {
-                @Index(name = "idx_token", columnList = "token"),
+                @Index(name = "idx_token_hash", columnList = "token_hash"),
                 @Index(name = "idx_user_visitor", columnList = "user_id,visitor_id"),
                 @Index(name = "idx_revoked_expiry", columnList = "revoked,expiry_date"),
-                @Index(name = "idx_token_user", columnList = "token,user_id")
+                @Index(name = "idx_token_hash_user", columnList = "token_hash,user_id")
         })
 @Getter
 @Setter
-@ToString(exclude = "user")
+@ToString(exclude = {"user", "token"})
 public class RefreshToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 36)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
     @NotNull
-    @Size(min = 36, max = 36)
+    @Size(min = 64, max = 64)
+    private String tokenHash;
+
+    // The value itself is never stored; it is only known to the request that issued it
+    @Transient
     private String token;
 
     @Column(nullable = false)
@@ -75,7 +80,7 @@ public class RefreshToken {
     public RefreshToken(User user, String token, LocalDateTime expiryDate,
                         String deviceInfo, String ipAddress, String visitorId) {
         this.user = user;
-        this.token = token;
+        assignToken(token);
         this.expiryDate = expiryDate;
         this.deviceInfo = deviceInfo;
         this.ipAddress = ipAddress;
@@ -90,8 +95,13 @@ public class RefreshToken {
         return !isExpired() && !revoked;
     }
 
+    public void assignToken(String token) {
+        this.token = token;
+        this.tokenHash = RefreshTokenUtil.hash(token);
+    }
+
     public void updateToken(String newToken, LocalDateTime newExpiryDate, String newIpAddress) {
-        this.token = newToken;
+        assignToken(newToken);
         this.expiryDate = newExpiryDate;
         this.ipAddress = newIpAddress;
     }
@@ -8,13 +8,14 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
     Optional<RefreshToken> findByUserAndVisitorId(User user, String visitorId);
 
     boolean existsByUserAndVisitorId(User user, String visitorId);
@@ -24,7 +25,16 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < ?1")
     int deleteExpiredTokens(LocalDateTime cutoffDate);
 
-    boolean existsByToken(String token);
+    // Rotates in one statement: a token that was rotated, revoked, or changed in any other way since it was read,
+    // or has expired, matches no row
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.tokenHash = :newTokenHash, rt.version = rt.version + 1 " +
+            "WHERE rt.tokenHash = :tokenHash AND rt.version = :version AND rt.revoked = false AND rt.expiryDate > :now")
+    int rotate(@Param("tokenHash") String tokenHash,
+               @Param("version") Long version,
+               @Param("newTokenHash") String newTokenHash,
+               @Param("now") LocalDateTime now);
 
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.user = :user AND rt.revoked = false AND rt.expiryDate > :now")
     List<RefreshToken> findActiveTokensByUser(@Param("user") User user, @Param("now") LocalDateTime now);
@@ -47,13 +57,16 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
                            @Param("revokedAt") LocalDateTime revokedAt,
                            @Param("revokedByIp") String revokedByIp);
 
+    @Query("SELECT rt.id FROM RefreshToken rt WHERE rt.user = :user AND rt.id != :exceptTokenId AND rt.revoked = false")
+    List<Long> findUnrevokedIdsForUserExcept(@Param("user") User user, @Param("exceptTokenId") Long exceptTokenId);
+
     @Modifying
     @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.revokedAt = :revokedAt, rt.revokedByIp = :revokedByIp " +
-            "WHERE rt.user = :user AND rt.id != :exceptTokenId")
-    int revokeAllForUserExcept(@Param("user") User user,
-                               @Param("exceptTokenId") Long exceptTokenId,
-                               @Param("revokedAt") LocalDateTime revokedAt,
-                               @Param("revokedByIp") String revokedByIp);
+            "WHERE rt.id IN :tokenIds AND rt.user = :user")
+    int revokeTokensForUser(@Param("tokenIds") List<Long> tokenIds,
+                            @Param("user") User user,
+                            @Param("revokedAt") LocalDateTime revokedAt,
+                            @Param("revokedByIp") String revokedByIp);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.user = :user AND rt.visitorId = :visitorId")
@@ -61,7 +74,7 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
 
 
     // Add these new methods
-    Optional<RefreshToken> findByTokenAndUser(String token, User user);
+    Optional<RefreshToken> findByTokenHashAndUser(String tokenHash, User user);
 
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.user = :user AND rt.visitorId = :visitorId AND rt.revoked = false AND rt.expiryDate > :now")
     long countActiveTokensByUserAndVisitorId(@Param("user") User user, @Param("visitorId") String visitorId, @Param("now") LocalDateTime now);
@@ -1,6 +1,8 @@
 package com.multicloud.auth.service;
 
+import com.multicloud.auth.component.SessionRevocationProducer;
 import com.multicloud.auth.component.UserRegistrationProducer;
+import com.multicloud.auth.config.UserDetailsCache;
 import com.multicloud.auth.dto.RegisterUserDto;
 import com.multicloud.auth.dto.VerifyUserDto;
 import com.multicloud.auth.dto.responses.TokenResponse;
@@ -8,6 +10,7 @@ import com.multicloud.auth.entity.RefreshToken;
 import com.multicloud.auth.entity.User;
 import com.multicloud.auth.repository.RefreshTokenRepository;
 import com.multicloud.auth.repository.UserRepository;
+import com.multicloud.auth.util.RefreshTokenUtil;
 import com.multicloud.commonlib.exceptions.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,14 +31,18 @@ public class AuthenticationService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final JweService jweService;
     private final UserRegistrationProducer userRegistrationProducer;
+    private final SessionRevocationProducer sessionRevocationProducer;
+    private final UserDetailsCache userDetailsCache;
 
-    public AuthenticationService(UserRepository userRepository, PasswordEncoder passwordEncoder, AsyncEmailNotificationService asyncEmailNotificationService, RefreshTokenRepository refreshTokenRepository, JweService jweService, UserRegistrationProducer userRegistrationProducer) {
+    public AuthenticationService(UserRepository userRepository, PasswordEncoder passwordEncoder, AsyncEmailNotificationService asyncEmailNotificationService, RefreshTokenRepository refreshTokenRepository, JweService jweService, UserRegistrationProducer userRegistrationProducer, SessionRevocationProducer sessionRevocationProducer, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.asyncEmailNotificationService = asyncEmailNotificationService;
         this.refreshTokenRepository = refreshTokenRepository;
         this.jweService = jweService;
         this.userRegistrationProducer = userRegistrationProducer;
+        this.sessionRevocationProducer = sessionRevocationProducer;
+        this.userDetailsCache = userDetailsCache;
     }
 
     // Method for user registration
@@ -60,31 +67,39 @@ public class AuthenticationService {
     }
 
     public RefreshToken getRefreshToken(String token) {
-        return refreshTokenRepository.findByToken(token).orElseThrow(() -> new TokenNotFoundException("Refresh token not found"));
+        return refreshTokenRepository.findByTokenHash(RefreshTokenUtil.hash(token)).orElseThrow(() -> new TokenNotFoundException("Refresh token not found"));
     }
 
-    public synchronized TokenResponse refreshTokens(User user, String oldRefreshToken) {
-        RefreshToken currentRefreshToken = getRefreshToken(oldRefreshToken);
+    // Rotation is one conditional UPDATE on the hash and @Version column rather than a lock: concurrent refreshes
+    // of different sessions run in parallel, and when two race on the same token only the first one matches
+    public TokenResponse refreshTokens(RefreshToken currentRefreshToken) {
         if (currentRefreshToken.isExpired()) {
             throw new InvalidRefreshTokenException("Old refresh or access token expired");
         }
-        String newAccessToken = jweService.generateToken(user);
-        String newRefreshTokenValue;
-        do {
-            newRefreshTokenValue = UUID.randomUUID().toString();
-        } while (refreshTokenRepository.existsByToken(newRefreshTokenValue));
+        if (currentRefreshToken.isRevoked()) {
+            throw new InvalidRefreshTokenException("Refresh token session has been revoked");
+        }
+        // 256 random bits do not collide, so there is no need to check the value is unused
+        String newRefreshTokenValue = RefreshTokenUtil.generate();
+        int rotated = refreshTokenRepository.rotate(currentRefreshToken.getTokenHash(), currentRefreshToken.getVersion(),
+                RefreshTokenUtil.hash(newRefreshTokenValue), LocalDateTime.now());
+        if (rotated == 0) {
+            throw new InvalidRefreshTokenException("Refresh token was already rotated");
+        }
+        // Only the request that rotated the token pays for the encryption
+        String newAccessToken = jweService.generateToken(currentRefreshToken.getUser(), currentRefreshToken.getId());
         LocalDateTime expiryDate = currentRefreshToken.getExpiryDate();
-        currentRefreshToken.setToken(newRefreshTokenValue);
-        refreshTokenRepository.save(currentRefreshToken);
         return new TokenResponse(newAccessToken, newRefreshTokenValue, expiryDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
     }
 
     public void logout(String token) {
-        Optional<RefreshToken> refreshTokenOptional = refreshTokenRepository.findByToken(token);
+        Optional<RefreshToken> refreshTokenOptional = refreshTokenRepository.findByTokenHash(RefreshTokenUtil.hash(token));
         if (refreshTokenOptional.isPresent()) {
             RefreshToken refreshToken = refreshTokenOptional.get();
-            refreshToken.setToken("");  // Clear the token field
+            refreshToken.assignToken(RefreshTokenUtil.generate());  // Replace the token with one nobody holds
             refreshTokenRepository.save(refreshToken);  // Update the entity in the database
+            // The access token cookie is cleared too, but a copied token would stay valid until it expires
+            sessionRevocationProducer.sendSessionsRevokedEvent(refreshToken.getUser().getId(), List.of(refreshToken.getId()));
         } else {
             throw new TokenNotFoundException("Refresh token not found.");
         }
@@ -110,6 +125,7 @@ public class AuthenticationService {
                 user.setVerificationCode(null);  // Clear the verification code
                 user.setVerificationCodeExpiresAt(null);  // Clear expiration time
                 userRepository.save(user);  // Save the updated user
+                userDetailsCache.evict(user);  // A cached copy would still be disabled
                 userDetails.put("email", user.getEmail());
                 userDetails.put("username", user.getUsername());
                 logger.info("User with username '{}' verified successfully", user.getUsername());
@@ -1,5 +1,6 @@
 package com.multicloud.auth.service;
 
+import com.multicloud.auth.config.UserDetailsCache;
 import com.multicloud.auth.entity.User;
 import com.multicloud.auth.repository.UserRepository;
 import com.multicloud.commonlib.exceptions.InvalidPasswordResetTokenException;
@@ -19,13 +20,15 @@ public class ForgotPasswordService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AsyncEmailNotificationService asyncEmailNotificationService;
+    private final UserDetailsCache userDetailsCache;
 
     private static final Logger logger = LoggerFactory.getLogger(ForgotPasswordService.class);
 
-    public ForgotPasswordService(UserRepository userRepository, PasswordEncoder passwordEncoder, AsyncEmailNotificationService asyncEmailNotificationService) {
+    public ForgotPasswordService(UserRepository userRepository, PasswordEncoder passwordEncoder, AsyncEmailNotificationService asyncEmailNotificationService, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.asyncEmailNotificationService = asyncEmailNotificationService;
+        this.userDetailsCache = userDetailsCache;
     }
     private String generateToken() {
         SecureRandom secureRandom = new SecureRandom();
@@ -71,6 +74,7 @@ public class ForgotPasswordService {
         user.setPasswordResetToken(null);
         user.setPasswordResetExpiresAt(null);
         userRepository.save(user);
+        userDetailsCache.evict(user);
         logger.info("Password reset successfully for User {}. The last login for the User was from {}", user.getUsername(), user.getLastLoginIp());
     }
 }
\ No newline at end of file
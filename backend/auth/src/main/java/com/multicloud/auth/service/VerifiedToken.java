@@ -0,0 +1,37 @@
+package com.multicloud.auth.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.text.ParseException;
+import java.time.Instant;
+
+import static com.multicloud.commonlib.constants.AuthConstants.SESSION_ID_CLAIM;
+
+/**
+ * Claims of an access token that has been decrypted and checked for expiry, used as the security principal of the
+ * request so nothing downstream has to decrypt the token again.
+ *
+ * Requests authenticated by the gateway's identity assertion carry no token, so {@code sessionId} and
+ * {@code expiresAt} are {@code null} for them.
+ *
+ * @param subject   the username the token was issued to
+ * @param sessionId the refresh token session the token belongs to, {@code null} for tokens issued without one
+ */
+public record VerifiedToken(String subject, String email, Long userId, Long sessionId, Instant expiresAt)
+        implements AuthenticatedPrincipal {
+
+    static VerifiedToken from(JWTClaimsSet claims) throws ParseException {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getStringClaim("emailId"),
+                claims.getLongClaim("userId"),
+                claims.getLongClaim(SESSION_ID_CLAIM),
+                claims.getExpirationTime().toInstant());
+    }
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+}
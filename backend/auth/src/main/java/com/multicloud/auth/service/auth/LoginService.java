@@ -1,6 +1,7 @@
 package com.multicloud.auth.service.auth;
 
 import com.multicloud.auth.config.AuthProperties;
+import com.multicloud.auth.config.UserDetailsCache;
 import com.multicloud.auth.dto.LoginProcessParameters;
 import com.multicloud.auth.dto.LoginUserDto;
 import com.multicloud.auth.dto.responses.GeneralApiResponse;
@@ -53,6 +54,7 @@ public class LoginService {
     private final AsyncEmailNotificationService asyncEmailNotificationService;
     private final RefreshTokenService refreshTokenService;
     private final AuthProperties authProperties;
+    private final UserDetailsCache userDetailsCache;
 
     public LoginService(
             AuthenticationManager authenticationManager,
@@ -61,7 +63,8 @@ public class LoginService {
             LoginAttemptRepository loginAttemptRepository,
             AsyncEmailNotificationService asyncEmailNotificationService,
             AuthProperties authProperties,
-            RefreshTokenService refreshTokenService) {
+            RefreshTokenService refreshTokenService,
+            UserDetailsCache userDetailsCache) {
         this.authenticationManager = authenticationManager;
         this.jweService = jweService;
         this.userRepository = userRepository;
@@ -69,6 +72,7 @@ public class LoginService {
         this.asyncEmailNotificationService = asyncEmailNotificationService;
         this.refreshTokenService = refreshTokenService;
         this.authProperties = authProperties;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Transactional
@@ -138,6 +142,7 @@ public class LoginService {
         updated |= checkAccountStatus(user, loginProcessParameters.getNow());
         if (updated) {
             userRepository.save(user);
+            userDetailsCache.evict(user);
         }
         return user;
     }
@@ -188,6 +193,7 @@ public class LoginService {
                 willLock,
                 willLock ? loginProcessParameters.getNow().plus(getLockoutDuration()) : null
         );
+        userDetailsCache.evict(user);
         if (willLock) {
             String lockTime = LoginTimeUtil.formatLoginTime(loginProcessParameters.getNow(), loginProcessParameters.getRequest().getHeader(DeviceConstants.HEADER_TIMEZONE));
             asyncEmailNotificationService.produceAccountLockNotification(user.getEmail(), loginProcessParameters.getClientIp(), lockTime, user.getFirstName());
@@ -200,7 +206,7 @@ public class LoginService {
 
     private ResponseEntity<GeneralApiResponse<LoginResponse>> buildSuccessResponse(User user, RefreshToken token,
                                                                                    boolean rememberMe, boolean isSecure) {
-        String jwe = jweService.generateToken(user);
+        String jwe = jweService.generateToken(user, token.getId());
         Duration refreshExpiry = rememberMe ? Duration.ofDays(authProperties.getToken().expiryRememberDays()) : Duration.ofDays(authProperties.getToken().expiryNormalDays());
 
         ResponseCookie refreshCookie = CookieUtil.createCookie(
@@ -1,10 +1,12 @@
 package com.multicloud.auth.service.auth;
 
+import com.multicloud.auth.component.SessionRevocationProducer;
 import com.multicloud.auth.dto.LoginProcessParameters;
 import com.multicloud.auth.entity.RefreshToken;
 import com.multicloud.auth.entity.User;
 import com.multicloud.auth.repository.RefreshTokenRepository;
 import com.multicloud.auth.service.AsyncEmailNotificationService;
+import com.multicloud.auth.util.RefreshTokenUtil;
 import com.multicloud.auth.util.UserAgentParser;
 import com.multicloud.commonlib.constants.DeviceConstants;
 import com.multicloud.commonlib.exceptions.TooManySessionsException;
@@ -19,12 +21,12 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class RefreshTokenService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final AsyncEmailNotificationService asyncEmailNotificationService;
+    private final SessionRevocationProducer sessionRevocationProducer;
     private final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
     @Value("${auth.token.expiry.remember-days:30}")
     private int rememberExpiryDays;
@@ -36,9 +38,11 @@ public class RefreshTokenService {
     private int maxSessions;
 
     public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
-                               AsyncEmailNotificationService asyncEmailNotificationService) {
+                               AsyncEmailNotificationService asyncEmailNotificationService,
+                               SessionRevocationProducer sessionRevocationProducer) {
         this.refreshTokenRepository = refreshTokenRepository;
         this.asyncEmailNotificationService = asyncEmailNotificationService;
+        this.sessionRevocationProducer = sessionRevocationProducer;
     }
 
     public RefreshToken handleRefreshToken(User user, LoginProcessParameters loginProcessParameters) {
@@ -47,15 +51,19 @@ public class RefreshTokenService {
             RefreshToken existing = existingOpt.get();
             if (!shouldRotateToken(existing, loginProcessParameters.getNow())) {
                 log.info("Reusing existing token ID {} for userId {}", existing.getId(), user.getId());
+                // Only the hash is stored, so the session is kept but handed out under a new value
+                existing.assignToken(RefreshTokenUtil.generate());
+                refreshTokenRepository.save(existing);
                 return existing;
             }
             existing.revoke(loginProcessParameters.getClientIp());
             refreshTokenRepository.save(existing);
+            sessionRevocationProducer.sendSessionsRevokedEvent(user.getId(), List.of(existing.getId()));
         }
         if (hasExceededSessionLimit(user, maxSessions, loginProcessParameters.getNow())) {
             throw new TooManySessionsException("Maximum active sessions reached. Please logout from another device.");
         }
-        String tokenValue = UUID.randomUUID().toString();
+        String tokenValue = RefreshTokenUtil.generate();
         String timezoneId = loginProcessParameters.getRequest().getHeader(DeviceConstants.HEADER_TIMEZONE);
         LocalDateTime newExpiry = loginProcessParameters.getNow().plusDays(loginProcessParameters.getLoginRequest().isRemember() ? rememberExpiryDays : normalExpiryDays);
         String deviceInfo = UserAgentParser.buildDeviceInfo(loginProcessParameters.getUserAgent(), loginProcessParameters.getRequest());
@@ -99,11 +107,18 @@ public class RefreshTokenService {
 
     @Transactional
     public void revokeSession(User user, Long tokenId, String revokedByIp) {
-        refreshTokenRepository.revokeTokenForUser(tokenId, user, LocalDateTime.now(), revokedByIp);
+        if (refreshTokenRepository.revokeTokenForUser(tokenId, user, LocalDateTime.now(), revokedByIp) > 0) {
+            sessionRevocationProducer.sendSessionsRevokedEvent(user.getId(), List.of(tokenId));
+        }
     }
 
     @Transactional
     public void revokeAllOtherSessions(User user, Long currentTokenId, String revokedByIp) {
-        refreshTokenRepository.revokeAllForUserExcept(user, currentTokenId, LocalDateTime.now(), revokedByIp);
+        // Revoke exactly the sessions that are announced; a session created after this select stays active
+        List<Long> tokenIds = refreshTokenRepository.findUnrevokedIdsForUserExcept(user, currentTokenId);
+        if (!tokenIds.isEmpty()
+                && refreshTokenRepository.revokeTokensForUser(tokenIds, user, LocalDateTime.now(), revokedByIp) > 0) {
+            sessionRevocationProducer.sendSessionsRevokedEvent(user.getId(), tokenIds);
+        }
     }
 }
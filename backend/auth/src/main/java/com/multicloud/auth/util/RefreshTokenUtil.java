@@ -0,0 +1,43 @@
+package com.multicloud.auth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Refresh token values and the hashes they are stored under. Only the client holds the value; the database keeps
+ * its SHA-256, so a leaked table cannot be replayed as cookies.
+ */
+public class RefreshTokenUtil {
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    // Private constructor to prevent instantiation
+    private RefreshTokenUtil() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return a new 256-bit value, Base64url encoded without padding (43 characters)
+     */
+    public static String generate() {
+        byte[] value = new byte[32];
+        SECURE_RANDOM.nextBytes(value);
+        return ENCODER.encodeToString(value);
+    }
+
+    /**
+     * @return the hex SHA-256 of {@code token} (64 characters), as stored in {@code refresh_tokens.token_hash}
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
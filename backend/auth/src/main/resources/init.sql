@@ -19,15 +19,17 @@ CREATE TABLE IF NOT EXISTS users (
                                      last_login_ip VARCHAR(255)
 );
 
+-- Databases created before token_hash existed are upgraded with migrate-refresh-token-hash.sql
 CREATE TABLE IF NOT EXISTS refresh_tokens (
                                               id BIGSERIAL PRIMARY KEY,
-                                              token VARCHAR(255) NOT NULL,
+                                              token_hash VARCHAR(64) UNIQUE NOT NULL,
                                               expiry_date TIMESTAMP NOT NULL,
                                               device_info VARCHAR(255),
                                               ip_address VARCHAR(255),
                                               visitor_id VARCHAR(255),
                                               created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
                                               user_id BIGINT NOT NULL,
+                                              version BIGINT NOT NULL DEFAULT 0,
                                               CONSTRAINT fk_user
                                                   FOREIGN KEY(user_id)
                                                       REFERENCES users(id)
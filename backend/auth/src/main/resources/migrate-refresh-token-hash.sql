@@ -0,0 +1,35 @@
+-- Moves an existing refresh_tokens table from plaintext tokens to SHA-256 hashes (see init.sql for new databases).
+-- Safe to run more than once: every step checks what is already there.
+-- psql -d multi_cloud -f migrate-refresh-token-hash.sql
+
+BEGIN;
+
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS version BIGINT;
+
+-- Hash the old values so existing sessions keep working, then drop the plaintext column.
+-- convert_to matches RefreshTokenUtil.hash, which hashes the UTF-8 bytes; token::bytea would unescape backslashes.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1
+               FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name = 'refresh_tokens'
+                 AND column_name = 'token') THEN
+        UPDATE refresh_tokens
+        SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+        WHERE token_hash IS NULL;
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+    END IF;
+END
+$$;
+
+UPDATE refresh_tokens SET version = 0 WHERE version IS NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE refresh_tokens ALTER COLUMN version SET NOT NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+
+-- Same name as the index behind init.sql's UNIQUE constraint, so it is skipped on tables created from init.sql
+CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_token_hash_key ON refresh_tokens (token_hash);
+
+COMMIT;
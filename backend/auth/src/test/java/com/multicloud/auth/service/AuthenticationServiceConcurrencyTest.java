@@ -0,0 +1,194 @@
+package com.multicloud.auth.service;
+
+import com.multicloud.auth.component.SessionRevocationProducer;
+import com.multicloud.auth.component.UserRegistrationProducer;
+import com.multicloud.auth.config.UserDetailsCache;
+import com.multicloud.auth.dto.responses.TokenResponse;
+import com.multicloud.auth.entity.RefreshToken;
+import com.multicloud.auth.entity.User;
+import com.multicloud.auth.repository.RefreshTokenRepository;
+import com.multicloud.auth.repository.UserRepository;
+import com.multicloud.auth.util.RefreshTokenUtil;
+import com.multicloud.commonlib.exceptions.InvalidRefreshTokenException;
+import com.multicloud.commonlib.exceptions.TokenNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceConcurrencyTest {
+
+    private static final int SESSIONS = 8;
+
+    private final Map<Long, StoredToken> tokens = new HashMap<>();
+    private RefreshTokenRepository refreshTokenRepository;
+    private JweService jweService;
+    private AuthenticationService authenticationService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        jweService = mock(JweService.class);
+        // Stands in for the database: every lookup gets its own copy, and rotate applies the hash and version condition
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenAnswer(invocation -> find(invocation.getArgument(0)));
+        when(refreshTokenRepository.rotate(anyString(), anyLong(), anyString(), any(LocalDateTime.class))).thenAnswer(invocation ->
+                rotate(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(jweService.generateToken(any(User.class), anyLong())).thenReturn("access-token");
+        authenticationService = new AuthenticationService(mock(UserRepository.class), mock(PasswordEncoder.class),
+                mock(AsyncEmailNotificationService.class), refreshTokenRepository, jweService,
+                mock(UserRegistrationProducer.class), mock(SessionRevocationProducer.class), mock(UserDetailsCache.class));
+        executor = Executors.newFixedThreadPool(SESSIONS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void refreshesOfDifferentSessionsRunInParallel() throws Exception {
+        List<String> values = new ArrayList<>();
+        for (long id = 1; id <= SESSIONS; id++) {
+            values.add(store(id));
+        }
+        // Each refresh waits inside the access token encryption until all of them are there,
+        // which cannot happen if refreshes are serialised
+        CyclicBarrier allInside = new CyclicBarrier(SESSIONS);
+        when(jweService.generateToken(any(User.class), anyLong())).thenAnswer(invocation -> {
+            allInside.await(5, TimeUnit.SECONDS);
+            return "access-token-" + invocation.getArgument(1);
+        });
+
+        List<Future<TokenResponse>> results = new ArrayList<>();
+        for (String value : values) {
+            results.add(executor.submit(() -> refresh(value)));
+        }
+
+        for (Future<TokenResponse> result : results) {
+            TokenResponse response = result.get(10, TimeUnit.SECONDS);
+            assertThat(response.refreshToken()).isNotIn(values);
+        }
+        assertThat(allInside.isBroken()).isFalse();
+    }
+
+    @Test
+    void onlyOneOfTwoConcurrentRefreshesOfTheSameTokenWins() throws Exception {
+        String value = store(1L);
+        // Both requests read the token before either of them saves
+        CyclicBarrier bothLoaded = new CyclicBarrier(2);
+        String hash = RefreshTokenUtil.hash(value);
+        when(refreshTokenRepository.findByTokenHash(eq(hash))).thenAnswer(invocation -> {
+            Optional<RefreshToken> token = find(hash);
+            bothLoaded.await(5, TimeUnit.SECONDS);
+            return token;
+        });
+
+        Future<TokenResponse> first = executor.submit(() -> refresh(value));
+        Future<TokenResponse> second = executor.submit(() -> refresh(value));
+
+        int rotated = 0;
+        int rejected = 0;
+        for (Future<TokenResponse> result : List.of(first, second)) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                rotated++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InvalidRefreshTokenException.class);
+                rejected++;
+            }
+        }
+        assertThat(rotated).isEqualTo(1);
+        assertThat(rejected).isEqualTo(1);
+        assertThat(find(hash)).isEmpty();
+    }
+
+    @Test
+    void rejectsTheOldTokenOnceRotated() {
+        String value = store(1L);
+
+        TokenResponse response = refresh(value);
+
+        assertThat(response.refreshToken()).hasSize(43);
+        assertThat(refresh(response.refreshToken()).refreshToken()).isNotEqualTo(response.refreshToken());
+        assertThatThrownBy(() -> refresh(value)).isInstanceOf(TokenNotFoundException.class);
+    }
+
+    @Test
+    void rejectsARevokedSession() {
+        String value = store(1L);
+        RefreshToken token = authenticationService.getRefreshToken(value);
+        token.revoke("203.0.113.24");
+
+        assertThatThrownBy(() -> authenticationService.refreshTokens(token))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(find(RefreshTokenUtil.hash(value))).isPresent();
+    }
+
+    private TokenResponse refresh(String value) {
+        return authenticationService.refreshTokens(authenticationService.getRefreshToken(value));
+    }
+
+    private String store(long id) {
+        String value = RefreshTokenUtil.generate();
+        synchronized (tokens) {
+            tokens.put(id, new StoredToken(RefreshTokenUtil.hash(value), LocalDateTime.now().plusDays(1), 0L));
+        }
+        return value;
+    }
+
+    private Optional<RefreshToken> find(String hash) {
+        synchronized (tokens) {
+            return tokens.entrySet().stream()
+                    .filter(entry -> entry.getValue().hash().equals(hash))
+                    .findFirst()
+                    .map(entry -> {
+                        RefreshToken token = new RefreshToken();
+                        token.setId(entry.getKey());
+                        token.setTokenHash(entry.getValue().hash());
+                        token.setUser(new User());
+                        token.setExpiryDate(entry.getValue().expiryDate());
+                        token.setVersion(entry.getValue().version());
+                        return token;
+                    });
+        }
+    }
+
+    private int rotate(String hash, Long version, String newHash) {
+        synchronized (tokens) {
+            for (Map.Entry<Long, StoredToken> entry : tokens.entrySet()) {
+                StoredToken stored = entry.getValue();
+                if (stored.hash().equals(hash) && stored.version().equals(version)) {
+                    entry.setValue(new StoredToken(newHash, stored.expiryDate(), stored.version() + 1));
+                    return 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private record StoredToken(String hash, LocalDateTime expiryDate, Long version) {
+    }
+}
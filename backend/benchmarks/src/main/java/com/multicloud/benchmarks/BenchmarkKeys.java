@@ -0,0 +1,52 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.commonlib.security.DirectJweKey;
+import com.multicloud.commonlib.security.JweDecryptor;
+import com.multicloud.commonlib.security.JweKeyRing;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import com.multicloud.commonlib.security.PemKeyUtil;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.EnumSet;
+
+/**
+ * In-memory key material for the benchmarks, so no PEM files or Spring context are needed.
+ */
+final class BenchmarkKeys {
+    private BenchmarkKeys() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    static JweKeyRing rsaKeyRing(int keySize) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(keySize);
+            KeyPair keyPair = generator.generateKeyPair();
+            RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+            return JweKeyRing.of(new JweKeyRing.KeyEntry(
+                    PemKeyUtil.deriveKeyId(publicKey), publicKey, (RSAPrivateKey) keyPair.getPrivate()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA is not available", e);
+        }
+    }
+
+    static String randomDirectKey() {
+        return Base64.getEncoder().encodeToString(randomSecret());
+    }
+
+    static byte[] randomSecret() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    static JweDecryptor decryptor(JweKeyRing keyRing, String directKey) {
+        return new JweDecryptor(keyRing, EnumSet.allOf(JweTokenProfile.class), DirectJweKey.fromBase64(directKey));
+    }
+}
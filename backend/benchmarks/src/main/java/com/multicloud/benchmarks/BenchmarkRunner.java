@@ -0,0 +1,49 @@
+package com.multicloud.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the selected benchmarks once per thread count with the GC profiler attached, so every result carries
+ * both ops/s and the normalized allocation rate ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Regular JMH arguments are passed through (e.g. a benchmark regex or {@code -p keySize=2048}).
+ * Thread counts come from {@code -Dbench.threads=1,4,16} (default: 1, 4 and the number of cores) and one JSON
+ * file per thread count is written to {@code -Dbench.resultDir} (default: {@code target/jmh}).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = Arrays.stream(System.getProperty("bench.threads", "1,4," + cores).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .distinct()
+                .toArray();
+        File resultDir = new File(System.getProperty("bench.resultDir", "target/jmh"));
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create result directory " + resultDir);
+        }
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "results-" + threads + "t.json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.gateway.service.ClientIpResolver;
+import com.multicloud.gateway.util.ClientIpAddresses;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.multicloud.commonlib.constants.DeviceConstants.INVALID_IP;
+import static com.multicloud.commonlib.constants.DeviceConstants.NOT_APPLICABLE;
+import static com.multicloud.commonlib.constants.DeviceConstants.UNKNOWN_IP;
+
+/**
+ * Client IP resolution for the header shapes the gateway sees most often, behind a trusted proxy at 10.0.0.7.
+ * {@code baselineResolveClientIps} keeps the original header-candidate scan with a regex and
+ * {@code InetAddress.getByName} as a reference point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientIpResolverBenchmark {
+
+    @Param({"remote-ipv4", "xff-ipv4", "xff-chain", "xff-spoofed", "forwarded-ipv6", "xff-ipv6", "ipv4-mapped"})
+    public String shape;
+
+    private ClientIpResolver resolver;
+    private ServerHttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resolver = new ClientIpResolver(
+                List.of("127.0.0.0/8", "::1/128", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "fc00::/7"),
+                List.of("X-Forwarded-For", "Forwarded"));
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("/api/vms")
+                .remoteAddress(new InetSocketAddress("10.0.0.7", 54321));
+        request = switch (shape) {
+            case "remote-ipv4" -> builder.build();
+            case "xff-ipv4" -> builder.header("X-Forwarded-For", "203.0.113.24").build();
+            case "xff-chain" -> builder.header("X-Forwarded-For", "203.0.113.24, 10.1.2.3, 10.0.0.1").build();
+            case "xff-spoofed" -> builder.header("X-Forwarded-For", "1.2.3.4, 203.0.113.24").build();
+            case "forwarded-ipv6" -> builder.header("Forwarded", "for=\"[2001:db8:cafe::17]\";proto=https").build();
+            case "xff-ipv6" -> builder.header("X-Forwarded-For", "2001:db8:85a3::8a2e:370:7334").build();
+            case "ipv4-mapped" -> builder.header("X-Forwarded-For", "::ffff:198.51.100.9").build();
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+    }
+
+    @Benchmark
+    public ClientIpAddresses resolveClientIps() {
+        return resolver.resolve(request);
+    }
+
+    @Benchmark
+    public String[] baselineResolveClientIps() {
+        return baselineResolve(request);
+    }
+
+    // The headers the original resolver tried, in order
+    private static final List<String> IP_HEADER_CANDIDATES = List.of(
+            "X-Forwarded-For",
+            "Proxy-Client-IP",
+            "WL-Proxy-Client-IP",
+            "HTTP_X_FORWARDED_FOR",
+            "HTTP_X_FORWARDED",
+            "HTTP_X_CLUSTER_CLIENT_IP",
+            "HTTP_CLIENT_IP",
+            "HTTP_FORWARDED_FOR",
+            "HTTP_FORWARDED",
+            "HTTP_VIA",
+            "X-Real-IP",
+            "X-Client-IP",
+            "CF-Connecting-IP",
+            "Forwarded",
+            "Forwarded-For"
+    );
+
+    private static final Pattern FORWARDED_HEADER_PATTERN =
+            Pattern.compile("for=([^;,\\s]+)", Pattern.CASE_INSENSITIVE);
+
+    private static String[] baselineResolve(ServerHttpRequest request) {
+        String clientIp = null;
+        for (String header : IP_HEADER_CANDIDATES) {
+            String headerValue = request.getHeaders().getFirst(header);
+            if (headerValue != null && !headerValue.isBlank()) {
+                if (header.equalsIgnoreCase("Forwarded")) {
+                    var matcher = FORWARDED_HEADER_PATTERN.matcher(headerValue);
+                    if (matcher.find()) {
+                        clientIp = matcher.group(1).trim();
+                    }
+                } else {
+                    clientIp = headerValue.split(",")[0].trim();
+                }
+                if (clientIp != null && !clientIp.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        if ((clientIp == null || clientIp.isEmpty())
+                && request.getRemoteAddress() != null
+                && request.getRemoteAddress().getAddress() != null) {
+            clientIp = request.getRemoteAddress().getAddress().getHostAddress();
+        }
+        String ipV4 = UNKNOWN_IP;
+        String ipV6 = UNKNOWN_IP;
+        if (clientIp != null && !clientIp.isEmpty()) {
+            try {
+                String cleanIp = clientIp.replaceAll("[\\[\\]]", "");
+                InetAddress inetAddress = InetAddress.getByName(cleanIp);
+                if (inetAddress.getHostAddress().contains(":")) {
+                    if (inetAddress.getHostAddress().startsWith("::ffff:")) {
+                        ipV4 = inetAddress.getHostAddress().substring(7);
+                        ipV6 = NOT_APPLICABLE;
+                    } else {
+                        ipV6 = inetAddress.getHostAddress();
+                        ipV4 = NOT_APPLICABLE;
+                    }
+                } else {
+                    ipV4 = inetAddress.getHostAddress();
+                    ipV6 = NOT_APPLICABLE;
+                }
+            } catch (UnknownHostException e) {
+                ipV4 = ipV6 = INVALID_IP;
+            }
+        }
+        return new String[]{ipV4, ipV6};
+    }
+}
@@ -0,0 +1,73 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.auth.entity.User;
+import com.multicloud.auth.service.JweService;
+import com.multicloud.commonlib.security.JweKeyRing;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import com.multicloud.gateway.cache.CachePolicies;
+import com.multicloud.gateway.cache.VerifiedClaimsCache;
+import com.multicloud.gateway.config.CachePolicyProperties;
+import com.multicloud.gateway.util.JweUtil;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway token validation, with and without the verified claims cache.
+ * Tokens are issued by the real auth {@link JweService} so both sides agree on the format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayJweUtilBenchmark {
+
+    @Param({"2048", "4096"})
+    public int keySize;
+
+    @Param({"RSA_OAEP_256", "DIR_A256GCM"})
+    public JweTokenProfile profile;
+
+    @Param({"false", "true"})
+    public boolean claimsCache;
+
+    private JweKeyRing keyRing;
+    private JweUtil jweUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyRing = BenchmarkKeys.rsaKeyRing(keySize);
+        String directKey = BenchmarkKeys.randomDirectKey();
+        JweService jweService = new JweService(keyRing, BenchmarkKeys.decryptor(keyRing, directKey),
+                3_600_000L, profile, directKey);
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark-user");
+        user.setEmail("benchmark-user@example.com");
+        token = jweService.generateToken(user);
+
+        // Same limits as the gateway's verified-claims policy
+        CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy(10_000L, null, Duration.ofMinutes(5),
+                null, CachePolicyProperties.KeyStrength.STRONG, true);
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(claimsCache, new CachePolicies(
+                new CachePolicyProperties(policy, Map.of()), new SimpleMeterRegistry()));
+        jweUtil = new JweUtil(BenchmarkKeys.decryptor(keyRing, directKey), cache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        keyRing.close();
+    }
+
+    @Benchmark
+    public JWTClaimsSet validateToken() throws Exception {
+        return jweUtil.validateToken(token);
+    }
+}
@@ -0,0 +1,96 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.gateway.util.ClientIpAddresses;
+import com.multicloud.gateway.util.IdentityHeadersUtil;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.multicloud.commonlib.constants.DeviceConstants.*;
+
+/**
+ * Per-request cost of attaching the identity headers, including the repeated {@code getHeaders()} calls made
+ * by routing, load balancing and the Netty client ({@code headerReads}).
+ * {@code baselineDecorator} is the previous decorator that re-set all five headers on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityHeadersBenchmark {
+
+    @Param({"1", "8"})
+    public int headerReads;
+
+    private ServerHttpRequest request;
+    private ServerHttpRequest writableRequest;
+    private JWTClaimsSet claims;
+    private ClientIpAddresses clientIp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        request = MockServerHttpRequest.get("/api/vms/123")
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.USER_AGENT, "Mozilla/5.0")
+                .header("X-Forwarded-For", "203.0.113.24")
+                .cookie(new HttpCookie("jweToken", "token"))
+                .build();
+        // The decorator assumed mutable headers, which a real request does not have; give it a mutable copy
+        HttpHeaders mutableHeaders = new HttpHeaders();
+        mutableHeaders.addAll(request.getHeaders());
+        writableRequest = new ServerHttpRequestDecorator(request) {
+            @Override
+            public @NonNull HttpHeaders getHeaders() {
+                return mutableHeaders;
+            }
+        };
+        claims = new JWTClaimsSet.Builder()
+                .subject("benchmark-user")
+                .claim("emailId", "benchmark-user@example.com")
+                .claim("userId", 42L)
+                .build();
+        clientIp = ClientIpAddresses.ofIpV4("203.0.113.24");
+    }
+
+    @Benchmark
+    public void buildOnce(Blackhole blackhole) {
+        ServerHttpRequest modified = IdentityHeadersUtil.withIdentityHeaders(request, claims, clientIp);
+        for (int i = 0; i < headerReads; i++) {
+            blackhole.consume(modified.getHeaders());
+        }
+    }
+
+    @Benchmark
+    public void baselineDecorator(Blackhole blackhole) {
+        String username = claims.getSubject();
+        String email = (String) claims.getClaim("emailId");
+        String userId = String.valueOf(claims.getClaim("userId"));
+        String ipAddressV4 = clientIp.ipV4();
+        String ipAddressV6 = clientIp.ipV6();
+        ServerHttpRequest modified = new ServerHttpRequestDecorator(writableRequest) {
+            @Override
+            public @NonNull HttpHeaders getHeaders() {
+                HttpHeaders headers = super.getHeaders();
+                headers.set(X_USER_NAME, username);
+                headers.set(X_USER_EMAIL, email);
+                headers.set(X_USER_ID, userId);
+                headers.set(HEADER_IPV4, ipAddressV4);
+                headers.set(HEADER_IPV6, ipAddressV6);
+                return headers;
+            }
+        };
+        for (int i = 0; i < headerReads; i++) {
+            blackhole.consume(modified.getHeaders());
+        }
+    }
+}
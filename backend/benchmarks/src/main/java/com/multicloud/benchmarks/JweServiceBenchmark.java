@@ -0,0 +1,62 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.auth.entity.User;
+import com.multicloud.auth.service.JweService;
+import com.multicloud.commonlib.security.JweKeyRing;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and validation cost in the auth service, per key size and token profile.
+ * The key size has no effect on {@code DIR_A256GCM}, which is kept in the matrix as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JweServiceBenchmark {
+
+    @Param({"2048", "3072", "4096"})
+    public int keySize;
+
+    @Param({"RSA_OAEP_256", "DIR_A256GCM"})
+    public JweTokenProfile profile;
+
+    private JweKeyRing keyRing;
+    private JweService jweService;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyRing = BenchmarkKeys.rsaKeyRing(keySize);
+        String directKey = BenchmarkKeys.randomDirectKey();
+        jweService = new JweService(keyRing, BenchmarkKeys.decryptor(keyRing, directKey),
+                3_600_000L, profile, directKey);
+
+        user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark-user");
+        user.setEmail("benchmark-user@example.com");
+        token = jweService.generateToken(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        keyRing.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jweService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jweService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,117 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.auth.config.JwtAuthenticationFilter;
+import com.multicloud.auth.entity.User;
+import com.multicloud.auth.service.JweService;
+import com.multicloud.commonlib.security.IdentityAssertion;
+import com.multicloud.commonlib.security.JweKeyRing;
+import com.multicloud.commonlib.security.JweTokenProfile;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.multicloud.commonlib.constants.DeviceConstants.*;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter} in the auth service.
+ * {@code previousPath} repeats the decrypts the filter used to make for one request (email, username, expiry),
+ * without the user lookup that followed them. {@code authenticateWithAssertion} is the
+ * {@code GATEWAY_ASSERTION} mode, where the gateway's signed identity headers replace the decrypt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"RSA_OAEP_256", "DIR_A256GCM"})
+    public JweTokenProfile profile;
+
+    private JweKeyRing keyRing;
+    private JweService jweService;
+    private JwtAuthenticationFilter filter;
+    private JwtAuthenticationFilter assertionFilter;
+    private IdentityAssertion identityAssertion;
+    private User user;
+    private String token;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyRing = BenchmarkKeys.rsaKeyRing(2048);
+        String directKey = BenchmarkKeys.randomDirectKey();
+        jweService = new JweService(keyRing, BenchmarkKeys.decryptor(keyRing, directKey),
+                3_600_000L, profile, directKey);
+        // A short window keeps the filter's set of accepted assertions small at benchmark rates
+        identityAssertion = new IdentityAssertion(
+                Map.of("bench", BenchmarkKeys.randomSecret()), Duration.ofSeconds(1), Clock.systemUTC());
+        filter = new JwtAuthenticationFilter(jweService, identityAssertion, JwtAuthenticationFilter.Mode.JWE);
+        assertionFilter = new JwtAuthenticationFilter(
+                jweService, identityAssertion, JwtAuthenticationFilter.Mode.GATEWAY_ASSERTION);
+
+        user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark-user");
+        user.setEmail("benchmark-user@example.com");
+        token = jweService.generateToken(user, 7L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        keyRing.close();
+    }
+
+    @Benchmark
+    public int authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/userinfo");
+        request.setServletPath("/auth/userinfo");
+        request.setCookies(new Cookie("jweToken", token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int authenticateWithAssertion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/userinfo");
+        request.setServletPath("/auth/userinfo");
+        request.setCookies(new Cookie("jweToken", token));
+        request.addHeader(X_USER_NAME, user.getUsername());
+        request.addHeader(X_USER_EMAIL, user.getEmail());
+        request.addHeader(X_USER_ID, "42");
+        // Each request gets its own id, as from the gateway; the filter rejects an assertion it has already accepted
+        String requestId = "bench-" + requestIds.incrementAndGet();
+        request.addHeader(X_REQUEST_ID, requestId);
+        // Signed per invocation as the gateway would, so the cost of both ends is included
+        request.addHeader(X_USER_ASSERTION, identityAssertion.sign(
+                user.getUsername(), user.getEmail(), "42", requestId, "GET", "/auth/userinfo"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            assertionFilter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public boolean previousPath() {
+        String email = jweService.extractEmail(token);
+        return email != null && jweService.isTokenValid(token, user) && jweService.extractUsername(token) != null;
+    }
+}
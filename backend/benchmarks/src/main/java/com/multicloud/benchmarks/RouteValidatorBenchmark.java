@@ -0,0 +1,35 @@
+package com.multicloud.benchmarks;
+
+import com.multicloud.gateway.filter.RouteValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-endpoint matching for a public path, a secured path and a path that shares a prefix with an open one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteValidatorBenchmark {
+
+    @Param({"/auth/login", "/api/vms/123/metrics", "/auth/refresh-token-extra", "/auth/v3/api-docs/swagger-config"})
+    public String path;
+
+    private ServerHttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        request = MockServerHttpRequest.get(path).build();
+    }
+
+    @Benchmark
+    public boolean isSecured() {
+        return RouteValidator.isSecured.test(request);
+    }
+}
@@ -1,5 +1,8 @@
 package com.multicloud.commonlib.constants;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Utility class containing authentication-related constants.
  */
@@ -17,9 +20,44 @@ public class AuthConstants {
      * The name of the HTTP cookie used for JWE tokens.
      */
     public static final String JWE_TOKEN_COOKIE_NAME = "jweToken";
+    /**
+     * Access token claim holding the id of the refresh token session the token was issued for.
+     */
+    public static final String SESSION_ID_CLAIM = "sid";
 
     /**
      * The name of the response to indicate the credentials is invalid.
      */
     public static final String INVALID_CREDENTIALS = "Invalid credentials";
+
+    /**
+     * Auth service endpoints that are reachable without an access token.
+     * The gateway and the auth service both build their open path sets from this list.
+     */
+    public static final List<String> PUBLIC_AUTH_ENDPOINTS = List.of(
+            "/auth/signup",
+            "/auth/verify",
+            "/auth/login",
+            "/auth/resend",
+            "/auth/forgot-password",
+            "/auth/reset-password",
+            "/auth/take-action",
+            "/auth/refresh-token",
+            "/auth/logout",
+            "/auth/v3/**",
+            "/auth/swagger-ui/**"
+    );
+
+    /**
+     * Paths the auth service's JWE filter skips: the public endpoints plus health and metrics probes.
+     */
+    public static final List<String> JWE_FILTER_EXCLUDED_PATHS = Stream.concat(
+            PUBLIC_AUTH_ENDPOINTS.stream(),
+            Stream.of(
+                    "/auth/health",
+                    "/auth/actuator/health",
+                    "/auth/actuator/prometheus",
+                    "/actuator/**"
+            )
+    ).toList();
 }
@@ -131,6 +131,14 @@ public class DeviceConstants {
      * Header for User Id
      */
     public static final String X_USER_ID = "X-User-Id";
+    /**
+     * Header with the gateway's HMAC over the identity headers, see {@code IdentityAssertion}
+     */
+    public static final String X_USER_ASSERTION = "X-User-Assertion";
+    /**
+     * Header for Request Id
+     */
+    public static final String X_REQUEST_ID = "X-Request-Id";
     /**
      * The name of NA IP Address.
      */
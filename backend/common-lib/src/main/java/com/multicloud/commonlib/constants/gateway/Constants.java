@@ -1,6 +1,9 @@
 package com.multicloud.commonlib.constants.gateway;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static com.multicloud.commonlib.constants.AuthConstants.PUBLIC_AUTH_ENDPOINTS;
 
 /**
  * Constants.java
@@ -21,43 +24,13 @@ public class Constants {
      * List of open API endpoints that do not require authentication.
      * These endpoints are accessible without any security checks.
      */
-    public static final List<String> OPEN_API_ENDPOINTS = List.of(
-            "/auth/signup",
-            "/eureka",
-            "/auth/verify",
-            "/auth/login",
-            "/auth/resend",
-            "/auth/validate-token",
-            "/auth/forgot-password",
-            "/auth/reset-password",
-            "/auth/take-action",
-            "/auth/v3/**",
-            "/auth/swagger-ui/**",
-            "/favicon.ico",
-            "/auth/refresh-token",
-            "/auth/logout",
-            "/csrf"
-    );
-
-    /**
-     * List of HTTP headers that may contain the client's IP address.
-     * These headers are commonly used in reverse proxy setups to forward the original client IP.
-     */
-    public static final List<String> IP_HEADER_CANDIDATES = List.of(
-            "X-Forwarded-For",
-            "Proxy-Client-IP",
-            "WL-Proxy-Client-IP",
-            "HTTP_X_FORWARDED_FOR",
-            "HTTP_X_FORWARDED",
-            "HTTP_X_CLUSTER_CLIENT_IP",
-            "HTTP_CLIENT_IP",
-            "HTTP_FORWARDED_FOR",
-            "HTTP_FORWARDED",
-            "HTTP_VIA",
-            "X-Real-IP",
-            "X-Client-IP",
-            "CF-Connecting-IP",
-            "Forwarded",
-            "Forwarded-For"
-    );
+    public static final List<String> OPEN_API_ENDPOINTS = Stream.concat(
+            PUBLIC_AUTH_ENDPOINTS.stream(),
+            Stream.of(
+                    "/eureka/**",
+                    "/auth/validate-token",
+                    "/favicon.ico",
+                    "/csrf"
+            )
+    ).toList();
 }
@@ -0,0 +1,72 @@
+package com.multicloud.commonlib.events;
+
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Bus event published by the auth service when refresh token sessions are revoked, so that services reading
+ * access tokens can reject the tokens issued for those sessions before they expire.
+ * <p>
+ * Access tokens carry their session id in the {@link com.multicloud.commonlib.constants.AuthConstants#SESSION_ID_CLAIM}
+ * claim. Services listening for this event must include this package in their {@code @RemoteApplicationEventScan}.
+ */
+public class SessionRevokedEvent extends RemoteApplicationEvent {
+    private Long userId;
+    private List<Long> sessionIds;
+    private long revokedAt;
+
+    /**
+     * Used by the bus when deserializing the event.
+     */
+    @SuppressWarnings("unused")
+    private SessionRevokedEvent() {
+        super();
+    }
+
+    /**
+     * Creates an event for the given bus destination.
+     *
+     * @param source        the publishing component
+     * @param originService the bus id of the publishing service
+     * @param destination   the services to address, usually every service from the bus's {@link Destination.Factory}
+     * @param userId        the owner of the sessions
+     * @param sessionIds    ids of the revoked sessions
+     * @param revokedAt     revocation time in epoch milliseconds
+     */
+    public SessionRevokedEvent(Object source, String originService, Destination destination, Long userId,
+                               List<Long> sessionIds, long revokedAt) {
+        super(source, originService, destination);
+        this.userId = userId;
+        this.sessionIds = List.copyOf(sessionIds);
+        this.revokedAt = revokedAt;
+    }
+
+    /**
+     * Returns the owner of the revoked sessions.
+     *
+     * @return the user id
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the ids of the revoked sessions.
+     *
+     * @return the session ids, never {@code null}
+     */
+    public List<Long> getSessionIds() {
+        return sessionIds != null ? sessionIds : List.of();
+    }
+
+    /**
+     * Returns when the sessions were revoked.
+     *
+     * @return epoch milliseconds
+     */
+    public long getRevokedAt() {
+        return revokedAt;
+    }
+}
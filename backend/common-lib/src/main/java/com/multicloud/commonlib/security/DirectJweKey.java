@@ -0,0 +1,49 @@
+package com.multicloud.commonlib.security;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Shared symmetric key for the {@link JweTokenProfile#DIR_A256GCM} profile.
+ *
+ * @param kid the key id written to and matched against the token header
+ * @param key the 256-bit AES key
+ */
+public record DirectJweKey(String kid, SecretKey key) {
+
+    /**
+     * Required key length in bytes for A256GCM.
+     */
+    private static final int KEY_LENGTH_BYTES = 32;
+
+    /**
+     * Builds a key from its Base64 encoding, deriving the key id from a digest of the key bytes.
+     *
+     * @param base64Key standard or URL-safe Base64 encoding of exactly 32 bytes
+     * @return the key
+     * @throws IllegalArgumentException if the value does not decode to a 256-bit key
+     */
+    public static DirectJweKey fromBase64(String base64Key) {
+        String trimmed = base64Key.trim();
+        byte[] keyBytes = trimmed.indexOf('-') >= 0 || trimmed.indexOf('_') >= 0
+                ? Base64.getUrlDecoder().decode(trimmed)
+                : Base64.getDecoder().decode(trimmed);
+        if (keyBytes.length != KEY_LENGTH_BYTES) {
+            throw new IllegalArgumentException("Direct JWE key must be 256 bits, got " + keyBytes.length * 8);
+        }
+        return new DirectJweKey(deriveKeyId(keyBytes), new SecretKeySpec(keyBytes, "AES"));
+    }
+
+    private static String deriveKeyId(byte[] keyBytes) {
+        try {
+            // Only a short prefix of the digest is exposed so the header does not leak a full key fingerprint
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(keyBytes);
+            return "dir-" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
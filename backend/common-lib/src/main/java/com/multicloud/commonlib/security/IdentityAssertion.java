@@ -0,0 +1,179 @@
+package com.multicloud.commonlib.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived HMAC-SHA256 the gateway attaches to the identity headers it forwards, so a service behind it can trust
+ * those headers without decrypting the access token again.
+ * <p>
+ * An assertion reads {@code <key id>.<issued at, epoch seconds>.<MAC>}. The MAC covers the key id, the issue time,
+ * the user name, email and id, the request id, and the request method and path, so none of them can be swapped
+ * without invalidating it and an assertion cannot be moved onto a different request. The same request can still be
+ * replayed within the time window; a verifier that must prevent that remembers the assertions it has accepted for
+ * twice {@link #getTtl()}.
+ * The first key signs; every key verifies, which allows rotating keys without a coordinated restart.
+ * Instances are thread-safe.
+ */
+public final class IdentityAssertion {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MINIMUM_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String signingKeyId;
+    private final Duration ttl;
+    private final long ttlSeconds;
+    private final Clock clock;
+
+    /**
+     * Creates an assertion signer and verifier.
+     *
+     * @param keys  secrets by key id, the signing key first
+     * @param ttl   how far the issue time may be from the verifier's clock, in either direction
+     * @param clock clock for issuing and checking assertions
+     * @throws IllegalArgumentException if a key is shorter than 256 bits or its id contains a dot
+     */
+    public IdentityAssertion(Map<String, byte[]> keys, Duration ttl, Clock clock) {
+        this.keys = new LinkedHashMap<>();
+        keys.forEach((id, secret) -> {
+            if (secret.length < MINIMUM_KEY_BYTES) {
+                throw new IllegalArgumentException("Identity assertion key '" + id + "' is shorter than 256 bits");
+            }
+            if (id.isEmpty() || id.indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Identity assertion key id '" + id + "' must be non-empty without '.'");
+            }
+            this.keys.put(id, new SecretKeySpec(secret, ALGORITHM));
+        });
+        this.signingKeyId = this.keys.isEmpty() ? null : this.keys.keySet().iterator().next();
+        this.ttl = ttl;
+        this.ttlSeconds = ttl.toSeconds();
+        this.clock = clock;
+    }
+
+    /**
+     * Parses keys written as {@code id:base64secret} pairs separated by commas, for example from a single property.
+     *
+     * @param value the key list, may be empty
+     * @return the keys in the order given
+     * @throws IllegalArgumentException if an entry is not an {@code id:secret} pair or not valid Base64
+     */
+    public static Map<String, byte[]> parseKeys(String value) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Identity assertion keys must be written as id:base64secret");
+            }
+            keys.put(trimmed.substring(0, colon), Base64.getDecoder().decode(trimmed.substring(colon + 1)));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns whether any key is configured; without one nothing can be signed and nothing verifies.
+     *
+     * @return {@code true} if assertions can be issued and checked
+     */
+    public boolean isEnabled() {
+        return signingKeyId != null;
+    }
+
+    /**
+     * Returns how far an issue time may be from the verifier's clock; an assertion is accepted for at most twice this.
+     *
+     * @return the configured time-to-live
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Signs the identity of a request.
+     *
+     * @param userName  the {@code X-User-Name} value, or {@code null}
+     * @param email     the {@code X-User-Email} value, or {@code null}
+     * @param userId    the {@code X-User-Id} value, or {@code null}
+     * @param requestId the {@code X-Request-Id} value, or {@code null}
+     * @param method    the HTTP method of the request
+     * @param path      the raw request path, without the query string
+     * @return the assertion header value
+     * @throws IllegalStateException if no key is configured
+     */
+    public String sign(String userName, String email, String userId, String requestId, String method, String path) {
+        if (signingKeyId == null) {
+            throw new IllegalStateException("No identity assertion key configured");
+        }
+        String prefix = signingKeyId + "." + clock.instant().getEpochSecond();
+        return prefix + "." + mac(keys.get(signingKeyId), prefix, userName, email, userId, requestId, method, path);
+    }
+
+    /**
+     * Checks an assertion against the headers it claims to cover.
+     *
+     * @param assertion the {@code X-User-Assertion} value
+     * @param userName  the {@code X-User-Name} value, or {@code null}
+     * @param email     the {@code X-User-Email} value, or {@code null}
+     * @param userId    the {@code X-User-Id} value, or {@code null}
+     * @param requestId the {@code X-Request-Id} value, or {@code null}
+     * @param method    the HTTP method of the request
+     * @param path      the raw request path, without the query string
+     * @return {@code true} if a known key signed exactly these values within the allowed time window
+     */
+    public boolean verify(String assertion, String userName, String email, String userId, String requestId,
+                          String method, String path) {
+        int first = assertion.indexOf('.');
+        int second = assertion.indexOf('.', first + 1);
+        if (first <= 0 || second < 0) {
+            return false;
+        }
+        SecretKeySpec key = keys.get(assertion.substring(0, first));
+        if (key == null) {
+            return false;
+        }
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(assertion, first + 1, second, 10);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(clock.instant().getEpochSecond() - issuedAt) > ttlSeconds) {
+            return false;
+        }
+        String prefix = assertion.substring(0, second);
+        byte[] expected = mac(key, prefix, userName, email, userId, requestId, method, path).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = assertion.substring(second + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private static String mac(SecretKeySpec key, String prefix, String userName, String email, String userId,
+                              String requestId, String method, String path) {
+        // Header values cannot contain line breaks, so joining with '\n' keeps the fields unambiguous
+        String message = prefix + "\n" + nullToEmpty(userName) + "\n" + nullToEmpty(email) + "\n"
+                + nullToEmpty(userId) + "\n" + nullToEmpty(requestId) + "\n" + nullToEmpty(method) + "\n"
+                + nullToEmpty(path);
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return ENCODER.encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
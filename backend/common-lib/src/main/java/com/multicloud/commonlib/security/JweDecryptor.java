@@ -0,0 +1,96 @@
+package com.multicloud.commonlib.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.RSADecrypter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decrypts access tokens of every accepted {@link JweTokenProfile}, picking the key from the token header.
+ * Shared by the auth service and the gateway so both read tokens with identical rules. Instances are thread-safe.
+ */
+public class JweDecryptor {
+    private final JweKeyRing keyRing;
+    private final Set<JweTokenProfile> acceptedProfiles;
+    private final DirectJweKey directKey;
+    private final DirectDecrypter directDecrypter;
+
+    /**
+     * Creates a decryptor.
+     *
+     * @param keyRing          RSA keys for {@link JweTokenProfile#RSA_OAEP_256}
+     * @param acceptedProfiles profiles this service reads; tokens of any other profile are rejected
+     * @param directKey        shared key for {@link JweTokenProfile#DIR_A256GCM}, or {@code null} if not configured
+     * @throws IllegalArgumentException if the direct profile is accepted without a direct key
+     */
+    public JweDecryptor(JweKeyRing keyRing, Set<JweTokenProfile> acceptedProfiles, DirectJweKey directKey) {
+        if (acceptedProfiles.contains(JweTokenProfile.DIR_A256GCM) && directKey == null) {
+            throw new IllegalArgumentException("The DIR_A256GCM profile is accepted but no direct key is configured");
+        }
+        this.keyRing = keyRing;
+        this.acceptedProfiles = EnumSet.copyOf(acceptedProfiles);
+        this.directKey = directKey;
+        try {
+            this.directDecrypter = directKey != null ? new DirectDecrypter(directKey.key()) : null;
+        } catch (JOSEException e) {
+            throw new IllegalArgumentException("Invalid direct JWE key", e);
+        }
+    }
+
+    /**
+     * Returns the profiles this decryptor accepts.
+     *
+     * @return the accepted profiles
+     */
+    public Set<JweTokenProfile> getAcceptedProfiles() {
+        return acceptedProfiles;
+    }
+
+    /**
+     * Decrypts a parsed token in place.
+     *
+     * @param jweObject the parsed token
+     * @throws UnknownKeyIdException if the token names a key id this decryptor does not know
+     * @throws JOSEException         if the profile is not accepted or decryption fails
+     */
+    public void decrypt(JWEObject jweObject) throws JOSEException {
+        JWEHeader header = jweObject.getHeader();
+        JweTokenProfile profile = JweTokenProfile.fromHeader(
+                header.getAlgorithm().getName(), header.getEncryptionMethod().getName());
+        if (profile == null || !acceptedProfiles.contains(profile)) {
+            throw new JOSEException("Token profile not accepted: " + header.getAlgorithm() + "/" + header.getEncryptionMethod());
+        }
+        if (profile == JweTokenProfile.DIR_A256GCM) {
+            if (header.getKeyID() != null && !header.getKeyID().equals(directKey.kid())) {
+                throw new UnknownKeyIdException(header.getKeyID());
+            }
+            jweObject.decrypt(directDecrypter);
+            return;
+        }
+        decryptRsa(jweObject, header.getKeyID());
+    }
+
+    private void decryptRsa(JWEObject jweObject, String kid) throws JOSEException {
+        if (kid != null) {
+            JweKeyRing.KeyEntry key = keyRing.find(kid)
+                    .orElseThrow(() -> new UnknownKeyIdException(kid));
+            jweObject.decrypt(new RSADecrypter(key.privateKey()));
+            return;
+        }
+        // Tokens issued before key ids were introduced carry no kid: try every key, active one first
+        JOSEException lastFailure = new JOSEException("No private key available");
+        for (JweKeyRing.KeyEntry key : keyRing.keys()) {
+            try {
+                jweObject.decrypt(new RSADecrypter(key.privateKey()));
+                return;
+            } catch (JOSEException e) {
+                lastFailure = e;
+            }
+        }
+        throw lastFailure;
+    }
+}
@@ -0,0 +1,299 @@
+package com.multicloud.commonlib.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory set of RSA keys used to issue and read JWE tokens, indexed by key id ({@code kid}).
+ * <p>
+ * Keys are parsed once when the ring is created. The first configured source is the active key used for
+ * issuing tokens; the remaining sources are decrypt-only. When {@link #startWatching(Duration)} is enabled the
+ * key files are polled for modification and reloaded in the background. A key that disappears from the
+ * configuration after a reload stays readable for the configured retention so tokens issued with it keep
+ * working until they expire. A reload that gives a known key id different key material is rejected, since the
+ * old key could then no longer be retained under that id; a replaced key needs a new id, or none so it is derived.
+ */
+public class JweKeyRing implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JweKeyRing.class);
+
+    /**
+     * A loaded key pair. The public key is always present; the private key is {@code null} for verify-only sources.
+     *
+     * @param kid        the key id
+     * @param publicKey  the RSA public key
+     * @param privateKey the RSA private key, or {@code null}
+     */
+    public record KeyEntry(String kid, RSAPublicKey publicKey, RSAPrivateKey privateKey) {
+    }
+
+    /**
+     * Location of the key material for one key. At least one of the resources must be set.
+     *
+     * @param kid        explicit key id, or {@code null} to derive it from the public key
+     * @param publicKey  PEM resource with the public key, or {@code null} to derive it from the private key
+     * @param privateKey PEM resource with the private key, or {@code null} for a public-only key
+     */
+    public record KeySource(String kid, Resource publicKey, Resource privateKey) {
+    }
+
+    private record Snapshot(KeyEntry active, Map<String, KeyEntry> byKid) {
+    }
+
+    private record RetiredKey(KeyEntry entry, Instant retiredAt) {
+    }
+
+    private final List<KeySource> sources;
+    private final Duration retention;
+    private final Map<String, RetiredKey> retired = new LinkedHashMap<>();
+    private Snapshot loaded;
+    private volatile Snapshot snapshot;
+    private long[] lastModified;
+    private ScheduledExecutorService reloader;
+
+    /**
+     * Creates a key ring and loads all sources immediately.
+     *
+     * @param sources   key sources; the first one is the active key
+     * @param retention how long a key that was removed by a reload stays available for decryption
+     * @throws IllegalStateException if any source cannot be loaded
+     */
+    public JweKeyRing(List<KeySource> sources, Duration retention) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one JWE key source is required");
+        }
+        this.sources = List.copyOf(sources);
+        this.retention = retention;
+        this.lastModified = readLastModified();
+        this.loaded = load();
+        this.snapshot = loaded;
+        logger.info("JWE key ring loaded with active key id {} and {} key(s)", snapshot.active().kid(), snapshot.byKid().size());
+    }
+
+    private JweKeyRing(List<KeyEntry> entries) {
+        this.sources = List.of();
+        this.retention = Duration.ZERO;
+        this.lastModified = new long[0];
+        this.loaded = toSnapshot(entries);
+        this.snapshot = loaded;
+    }
+
+    /**
+     * Creates a fixed key ring from keys that are already in memory. The first entry is the active key.
+     *
+     * @param entries the keys
+     * @return a key ring that never reloads
+     */
+    public static JweKeyRing of(KeyEntry... entries) {
+        if (entries.length == 0) {
+            throw new IllegalArgumentException("At least one JWE key is required");
+        }
+        return new JweKeyRing(Arrays.asList(entries));
+    }
+
+    /**
+     * Returns the key used to issue new tokens.
+     *
+     * @return the active key
+     */
+    public KeyEntry active() {
+        return snapshot.active();
+    }
+
+    /**
+     * Looks up a key by id, including keys that were retired by a reload but are still within retention.
+     *
+     * @param kid the key id from a token header
+     * @return the key, if known
+     */
+    public Optional<KeyEntry> find(String kid) {
+        if (kid == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.byKid().get(kid));
+    }
+
+    /**
+     * Returns every readable key, active key first.
+     *
+     * @return the keys
+     */
+    public Collection<KeyEntry> keys() {
+        return snapshot.byKid().values();
+    }
+
+    /**
+     * Re-reads every source and atomically swaps the key set. If any source fails to load, pairs a public key with
+     * a private key it does not belong to, or reuses a known key id for different key material, the current keys are
+     * kept.
+     *
+     * @return {@code true} if the key set was replaced
+     */
+    public synchronized boolean reload() {
+        Snapshot reloaded;
+        try {
+            reloaded = load();
+        } catch (IllegalStateException e) {
+            logger.warn("JWE key reload failed, keeping the current keys", e);
+            return false;
+        }
+        Optional<String> reusedKid = findReusedKid(reloaded);
+        if (reusedKid.isPresent()) {
+            logger.warn("JWE key reload rejected, keeping the current keys: key id {} now has different key material; "
+                    + "configure the new key under a new key id", reusedKid.get());
+            return false;
+        }
+        Instant now = Instant.now();
+        loaded.byKid().values().stream()
+                .filter(entry -> !reloaded.byKid().containsKey(entry.kid()))
+                .forEach(entry -> retired.putIfAbsent(entry.kid(), new RetiredKey(entry, now)));
+        reloaded.byKid().keySet().forEach(retired::remove);
+        loaded = reloaded;
+        snapshot = withRetired(reloaded);
+        logger.info("JWE key ring reloaded, active key id {} ({} retired key(s) still readable)",
+                reloaded.active().kid(), retired.size());
+        return true;
+    }
+
+    /**
+     * Starts polling the key resources for changes on a daemon thread.
+     *
+     * @param interval the polling interval; zero or negative disables polling
+     */
+    public synchronized void startWatching(Duration interval) {
+        if (interval.isZero() || interval.isNegative() || reloader != null || sources.isEmpty()) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwe-key-ring-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        reloader.scheduleWithFixedDelay(this::checkForChanges, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background reloader, if running.
+     */
+    @Override
+    public synchronized void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+
+    private synchronized void checkForChanges() {
+        try {
+            long[] current = readLastModified();
+            if (!Arrays.equals(current, lastModified) && reload()) {
+                lastModified = current;
+            }
+            pruneRetired();
+        } catch (RuntimeException e) {
+            logger.warn("JWE key change check failed", e);
+        }
+    }
+
+    private Optional<String> findReusedKid(Snapshot reloaded) {
+        return reloaded.byKid().values().stream()
+                .filter(entry -> {
+                    KeyEntry known = snapshot.byKid().get(entry.kid());
+                    return known != null && !sameKey(known.publicKey(), entry.publicKey());
+                })
+                .map(KeyEntry::kid)
+                .findFirst();
+    }
+
+    private static boolean sameKey(RSAPublicKey a, RSAPublicKey b) {
+        return a.getModulus().equals(b.getModulus()) && a.getPublicExponent().equals(b.getPublicExponent());
+    }
+
+    private void pruneRetired() {
+        Instant cutoff = Instant.now().minus(retention);
+        if (retired.values().removeIf(key -> key.retiredAt().isBefore(cutoff))) {
+            snapshot = withRetired(loaded);
+        }
+    }
+
+    private Snapshot withRetired(Snapshot loaded) {
+        Map<String, KeyEntry> byKid = new LinkedHashMap<>(loaded.byKid());
+        retired.forEach((kid, key) -> byKid.putIfAbsent(kid, key.entry()));
+        return new Snapshot(loaded.active(), Map.copyOf(byKid));
+    }
+
+    private Snapshot load() {
+        List<KeyEntry> entries = new ArrayList<>(sources.size());
+        for (KeySource source : sources) {
+            entries.add(loadEntry(source));
+        }
+        return toSnapshot(entries);
+    }
+
+    private static Snapshot toSnapshot(List<KeyEntry> entries) {
+        Map<String, KeyEntry> byKid = new LinkedHashMap<>();
+        entries.forEach(entry -> byKid.putIfAbsent(entry.kid(), entry));
+        return new Snapshot(entries.get(0), byKid);
+    }
+
+    private static KeyEntry loadEntry(KeySource source) {
+        RSAPrivateKey privateKey;
+        RSAPublicKey publicKey;
+        try {
+            privateKey = source.privateKey() != null ? PemKeyUtil.readPrivateKey(source.privateKey()) : null;
+            if (source.publicKey() != null) {
+                publicKey = PemKeyUtil.readPublicKey(source.publicKey());
+            } else {
+                publicKey = PemKeyUtil.derivePublicKey(Objects.requireNonNull(privateKey, "Key source has no key material"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to load JWE key material", e);
+        }
+        // The two files are not replaced atomically, so a reload can see the new public key with the old private key
+        if (privateKey != null && !publicKey.getModulus().equals(privateKey.getModulus())) {
+            throw new IllegalStateException("JWE public key " + source.publicKey() + " does not match private key "
+                    + source.privateKey());
+        }
+        String kid = source.kid() != null && !source.kid().isBlank() ? source.kid() : PemKeyUtil.deriveKeyId(publicKey);
+        return new KeyEntry(kid, publicKey, privateKey);
+    }
+
+    private long[] readLastModified() {
+        long[] result = new long[sources.size() * 2];
+        for (int i = 0; i < sources.size(); i++) {
+            result[i * 2] = lastModified(sources.get(i).publicKey());
+            result[i * 2 + 1] = lastModified(sources.get(i).privateKey());
+        }
+        return result;
+    }
+
+    private static long lastModified(Resource resource) {
+        if (resource == null) {
+            return 0L;
+        }
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar have no modification time; they simply never trigger a reload
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.multicloud.commonlib.security;
+
+/**
+ * Supported access token formats. The issuer writes exactly one profile; verifiers may accept several at once
+ * so a deployment can switch profiles without invalidating tokens that are already in circulation.
+ */
+public enum JweTokenProfile {
+    /**
+     * RSA-OAEP-256 key wrapping with A256GCM content encryption. Every read costs an RSA private key operation.
+     */
+    RSA_OAEP_256("RSA-OAEP-256", "A256GCM"),
+    /**
+     * Direct encryption with a shared 256-bit key and A256GCM. Reads cost a single AES-GCM pass,
+     * but every service that reads tokens must hold the shared key.
+     */
+    DIR_A256GCM("dir", "A256GCM");
+
+    private final String algorithm;
+    private final String encryptionMethod;
+
+    JweTokenProfile(String algorithm, String encryptionMethod) {
+        this.algorithm = algorithm;
+        this.encryptionMethod = encryptionMethod;
+    }
+
+    /**
+     * Returns the JWE {@code alg} header value written by this profile.
+     *
+     * @return the algorithm name
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the JWE {@code enc} header value written by this profile.
+     *
+     * @return the content encryption method name
+     */
+    public String getEncryptionMethod() {
+        return encryptionMethod;
+    }
+
+    /**
+     * Resolves the profile from the {@code alg} and {@code enc} values of a token header.
+     *
+     * @param algorithm        the {@code alg} header value
+     * @param encryptionMethod the {@code enc} header value
+     * @return the matching profile, or {@code null} if the combination is not one we issue
+     */
+    public static JweTokenProfile fromHeader(String algorithm, String encryptionMethod) {
+        for (JweTokenProfile profile : values()) {
+            if (profile.algorithm.equals(algorithm) && profile.encryptionMethod.equals(encryptionMethod)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.multicloud.commonlib.security;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of request path patterns compiled into a character trie, so a path is classified in a single
+ * left-to-right pass without allocating.
+ * <p>
+ * Two pattern forms are supported, with the same meaning they have for {@code AntPathMatcher}:
+ * <ul>
+ *     <li>{@code /auth/login} matches that exact path only;</li>
+ *     <li>{@code /auth/v3/**} matches {@code /auth/v3} and every path below {@code /auth/v3/}.</li>
+ * </ul>
+ * Any other wildcard is rejected when the classifier is compiled.
+ */
+public final class PathClassifier {
+    private static final String SUBTREE_SUFFIX = "/**";
+
+    private final Node root;
+    private final List<String> patterns;
+
+    private PathClassifier(Node root, List<String> patterns) {
+        this.root = root;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Compiles the given patterns.
+     *
+     * @param patterns exact paths or {@code /**} subtree patterns
+     * @return the compiled classifier
+     * @throws IllegalArgumentException if a pattern is blank, relative or uses an unsupported wildcard
+     */
+    public static PathClassifier compile(Collection<String> patterns) {
+        Node root = new Node();
+        for (String pattern : patterns) {
+            boolean subtree = pattern.endsWith(SUBTREE_SUFFIX);
+            String base = subtree ? pattern.substring(0, pattern.length() - SUBTREE_SUFFIX.length()) : pattern;
+            validate(pattern, base, subtree);
+
+            Node node = root;
+            for (int i = 0; i < base.length(); i++) {
+                node = node.childOrCreate(base.charAt(i));
+            }
+            if (subtree) {
+                node.subtree = true;
+            } else {
+                node.exact = true;
+            }
+        }
+        return new PathClassifier(root, List.copyOf(patterns));
+    }
+
+    /**
+     * Checks whether the path is matched by any of the compiled patterns.
+     *
+     * @param path the request path, without query string
+     * @return {@code true} if the path matches
+     */
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            // A subtree pattern ends on a segment boundary: /auth/v3/** covers /auth/v3/x but not /auth/v3x
+            if (node.subtree && c == '/') {
+                return true;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.exact || node.subtree;
+    }
+
+    /**
+     * Returns the patterns this classifier was compiled from, in their original order.
+     *
+     * @return the source patterns
+     */
+    public List<String> patterns() {
+        return patterns;
+    }
+
+    private static void validate(String pattern, String base, boolean subtree) {
+        if (!subtree && (pattern.isEmpty() || pattern.charAt(0) != '/')) {
+            throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+        }
+        if (subtree && !base.isEmpty() && base.charAt(0) != '/') {
+            throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+        }
+        for (int i = 0; i < base.length(); i++) {
+            char c = base.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                throw new IllegalArgumentException("Only exact paths and trailing /** are supported: " + pattern);
+            }
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // Sorted so lookups can binary search; paths use a small alphabet, so the arrays stay short
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean exact;
+        private boolean subtree;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node created = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = created;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.multicloud.commonlib.security;
+
+import com.multicloud.commonlib.exceptions.PrivateKeyLoadingException;
+import com.multicloud.commonlib.exceptions.PublicKeyLoadingException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Utility class for reading RSA keys from PEM encoded resources.
+ * Shared by the auth service and the gateway so both sides parse key material and derive key ids identically.
+ */
+public class PemKeyUtil {
+    /**
+     * Private constructor to prevent instantiation.
+     * This class is a utility class and should not be instantiated.
+     */
+    private PemKeyUtil() {
+        // Private constructor to prevent instantiation
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Number of digest bytes kept in a derived key id.
+     */
+    private static final int KEY_ID_BYTES = 12;
+
+    /**
+     * Reads an X.509 (SubjectPublicKeyInfo) RSA public key from a PEM resource.
+     *
+     * @param resource the resource containing a {@code BEGIN PUBLIC KEY} block
+     * @return the parsed public key
+     * @throws PublicKeyLoadingException if the resource cannot be read or does not contain an RSA public key
+     */
+    public static RSAPublicKey readPublicKey(Resource resource) throws PublicKeyLoadingException {
+        try {
+            byte[] keyBytes = decodePem(resource, "PUBLIC KEY");
+            KeyFactory kf = KeyFactory.getInstance("RSA");
+            return (RSAPublicKey) kf.generatePublic(new X509EncodedKeySpec(keyBytes));
+        } catch (Exception e) {
+            throw new PublicKeyLoadingException("Error loading public key from " + resource.getDescription(), e);
+        }
+    }
+
+    /**
+     * Reads a PKCS#8 RSA private key from a PEM resource.
+     *
+     * @param resource the resource containing a {@code BEGIN PRIVATE KEY} block
+     * @return the parsed private key
+     * @throws PrivateKeyLoadingException if the resource cannot be read or does not contain an RSA private key
+     */
+    public static RSAPrivateKey readPrivateKey(Resource resource) throws PrivateKeyLoadingException {
+        try {
+            byte[] keyBytes = decodePem(resource, "PRIVATE KEY");
+            KeyFactory kf = KeyFactory.getInstance("RSA");
+            return (RSAPrivateKey) kf.generatePrivate(new PKCS8EncodedKeySpec(keyBytes));
+        } catch (Exception e) {
+            throw new PrivateKeyLoadingException("Error loading private key from " + resource.getDescription(), e);
+        }
+    }
+
+    /**
+     * Derives the public half of an RSA key pair from its private CRT key.
+     *
+     * @param privateKey the private key, which must carry the public exponent (PKCS#8 keys from OpenSSL do)
+     * @return the matching public key
+     * @throws IllegalArgumentException if the private key does not expose its public exponent
+     */
+    public static RSAPublicKey derivePublicKey(RSAPrivateKey privateKey) {
+        if (!(privateKey instanceof RSAPrivateCrtKey crtKey)) {
+            throw new IllegalArgumentException("Private key does not carry its public exponent");
+        }
+        try {
+            KeyFactory kf = KeyFactory.getInstance("RSA");
+            return (RSAPublicKey) kf.generatePublic(new RSAPublicKeySpec(crtKey.getModulus(), crtKey.getPublicExponent()));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to derive public key", e);
+        }
+    }
+
+    /**
+     * Derives a stable key id from the SHA-256 digest of the DER encoded public key.
+     * The issuer and every verifier compute the same id from the same key pair without extra configuration.
+     *
+     * @param publicKey the public key
+     * @return a URL-safe key id
+     */
+    public static String deriveKeyId(RSAPublicKey publicKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+            byte[] truncated = new byte[KEY_ID_BYTES];
+            System.arraycopy(digest, 0, truncated, 0, KEY_ID_BYTES);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(truncated);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] decodePem(Resource resource, String type) throws IOException {
+        try (InputStream is = resource.getInputStream()) {
+            String content = new String(is.readAllBytes(), StandardCharsets.UTF_8)
+                    .replace("-----BEGIN " + type + "-----", "")
+                    .replace("-----END " + type + "-----", "")
+                    .replaceAll("\\s+", "");
+            return Base64.getDecoder().decode(content);
+        }
+    }
+}
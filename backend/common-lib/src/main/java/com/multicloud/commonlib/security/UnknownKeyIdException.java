@@ -0,0 +1,19 @@
+package com.multicloud.commonlib.security;
+
+import com.nimbusds.jose.JOSEException;
+
+/**
+ * Thrown by {@link JweDecryptor} when a token names a key id this service does not know. Unlike a failed decrypt
+ * this is not final: the key may simply not have been picked up by this service's {@link JweKeyRing} yet.
+ */
+public class UnknownKeyIdException extends JOSEException {
+
+    /**
+     * Creates the exception for the given key id.
+     *
+     * @param kid the key id from the token header
+     */
+    public UnknownKeyIdException(String kid) {
+        super("Unknown key id: " + kid);
+    }
+}
@@ -23,6 +23,7 @@ const CSRF_RETRY_DELAY = 1000;
 const USERINFO_RETRY_DELAY = 1000;
 const AUTH_FAILURE_COOLDOWN = 10000; // 10 seconds cooldown after auth failure
 const MISSING_AUTH_COOKIE_ERROR = 'Missing authorization cookie';
+const INVALID_CSRF_TOKEN_ERROR = 'Invalid CSRF token';
 
 interface Credentials {
     email: string;
@@ -51,6 +52,7 @@ interface AuthContextType {
 interface ExtendedAxiosRequestConfig extends InternalAxiosRequestConfig {
     _retryCount?: number;
     _retry?: boolean;
+    _csrfRetry?: boolean;
 }
 
 interface ApiErrorResponse {
@@ -307,6 +309,18 @@ export const AuthProvider = ({ children }: { children: ReactNode }) => {
         const axiosError = error as AxiosError<ApiErrorResponse>;
         const originalRequest = axiosError.config as ExtendedAxiosRequestConfig | undefined;
 
+        // The CSRF token expired or was signed with a key the gateway no longer has: fetch a new one and retry once
+        if (
+            axiosError.response?.status === 403 &&
+            axiosError.response?.data?.error === INVALID_CSRF_TOKEN_ERROR &&
+            originalRequest &&
+            !originalRequest._csrfRetry
+        ) {
+            originalRequest._csrfRetry = true;
+            csrfTokenRef.current = null;
+            return api(originalRequest);
+        }
+
         // Check if we're in cooldown period
         const now = Date.now();
         if (lastAuthFailureRef.current && now - lastAuthFailureRef.current < AUTH_FAILURE_COOLDOWN) {